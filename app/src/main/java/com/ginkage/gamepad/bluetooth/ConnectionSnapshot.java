@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.bluetooth;
+
+import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHidDevice;
+import com.ginkage.gamepad.core.ReportTransport;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Immutable pair of the profile proxy and the HID Host we are sending to. A new instance is
+ * published on every connection change, so the input path can read both without locking. It is
+ * also the transport that the reports are sent through.
+ */
+@Immutable
+final class ConnectionSnapshot implements ReportTransport {
+    static final ConnectionSnapshot EMPTY = new ConnectionSnapshot(null, null);
+
+    @Nullable final BluetoothHidDevice proxy;
+    @Nullable final BluetoothDevice device;
+
+    private ConnectionSnapshot(
+            @Nullable BluetoothHidDevice proxy, @Nullable BluetoothDevice device) {
+        this.proxy = proxy;
+        this.device = device;
+    }
+
+    /** @return {@code true} if the reports can be sent to a HID Host. */
+    boolean isConnected() {
+        return proxy != null && device != null;
+    }
+
+    ConnectionSnapshot withProxy(@Nullable BluetoothHidDevice proxy) {
+        return proxy == this.proxy ? this : new ConnectionSnapshot(proxy, device);
+    }
+
+    ConnectionSnapshot withDevice(@Nullable BluetoothDevice device) {
+        return device == this.device ? this : new ConnectionSnapshot(proxy, device);
+    }
+
+    /**
+     * Get a snapshot that talks to the specified host, which normally is the connected one.
+     *
+     * @param device Remote HID Host device.
+     * @return This snapshot if it already points to the same device, a new one otherwise.
+     */
+    ConnectionSnapshot forDevice(BluetoothDevice device) {
+        return device.equals(this.device) ? this : new ConnectionSnapshot(proxy, device);
+    }
+
+    @Override
+    @SuppressLint("MissingPermission")
+    public boolean sendReport(byte id, byte[] data) {
+        return isConnected() && proxy.sendReport(device, id, data);
+    }
+
+    @Override
+    @SuppressLint("MissingPermission")
+    public boolean replyReport(byte type, byte id, byte[] data) {
+        return isConnected() && proxy.replyReport(device, type, id, data);
+    }
+
+    @Override
+    @Nullable
+    public String getHostAddress() {
+        return device != null ? device.getAddress() : null;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.bluetooth;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothProfile;
+import android.util.ArrayMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * In-process copy of the HID Device profile connection states, keyed by the device address. It is
+ * kept current from the connection state callbacks, so that the common queries don't need a binder
+ * call. Devices that are not in the table are disconnected.
+ */
+final class ConnectionStateTable {
+    private static final class Entry {
+        final BluetoothDevice device;
+        final int state;
+
+        Entry(BluetoothDevice device, int state) {
+            this.device = device;
+            this.state = state;
+        }
+    }
+
+    private final Object lock = new Object();
+
+    @GuardedBy("lock")
+    private final Map<String, Entry> entries = new ArrayMap<>();
+
+    /**
+     * Record the new state of a device.
+     *
+     * @param device Remote device.
+     * @param state New connection state, see {@link BluetoothProfile#EXTRA_STATE}.
+     */
+    void update(BluetoothDevice device, int state) {
+        synchronized (lock) {
+            if (state == BluetoothProfile.STATE_DISCONNECTED) {
+                entries.remove(device.getAddress());
+            } else {
+                entries.put(device.getAddress(), new Entry(device, state));
+            }
+        }
+    }
+
+    /**
+     * @param device Remote device.
+     * @return Last known connection state of the device.
+     */
+    int getState(BluetoothDevice device) {
+        synchronized (lock) {
+            Entry entry = entries.get(device.getAddress());
+            return entry != null ? entry.state : BluetoothProfile.STATE_DISCONNECTED;
+        }
+    }
+
+    /**
+     * @param states Connection states we are interested in, must not include the disconnected one.
+     * @return Devices that are in one of the states.
+     */
+    List<BluetoothDevice> getDevicesMatching(int... states) {
+        List<BluetoothDevice> devices = new ArrayList<>();
+        synchronized (lock) {
+            for (Entry entry : entries.values()) {
+                for (int state : states) {
+                    if (entry.state == state) {
+                        devices.add(entry.device);
+                        break;
+                    }
+                }
+            }
+        }
+        return devices;
+    }
+
+    /** @return {@code true} if no device is connected or changing its connection state. */
+    boolean isIdle() {
+        synchronized (lock) {
+            return entries.isEmpty();
+        }
+    }
+
+    /** Forget all devices, e.g. when the profile service goes away. */
+    void clear() {
+        synchronized (lock) {
+            entries.clear();
+        }
+    }
+}
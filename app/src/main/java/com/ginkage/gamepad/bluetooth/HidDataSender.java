@@ -16,6 +16,7 @@
 
 package com.ginkage.gamepad.bluetooth;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.bluetooth.BluetoothDevice;
@@ -26,11 +27,19 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.BatteryManager;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.annotation.MainThread;
-import android.util.ArraySet;
 import android.util.Log;
 import com.ginkage.gamepad.bluetooth.HidDeviceProfile.ServiceStateListener;
-import java.util.Set;
+import com.ginkage.gamepad.core.GamepadReport;
+import com.ginkage.gamepad.core.GamepadState;
+import com.ginkage.gamepad.core.HidMetrics;
+import com.ginkage.gamepad.core.ReportLatency;
+import com.ginkage.gamepad.core.RumbleMailbox;
+import com.ginkage.gamepad.core.SessionRefCount;
+import java.io.PrintWriter;
+import java.util.Arrays;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
@@ -39,6 +48,12 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
 
     private static final String TAG = "HidDataSender";
 
+    /**
+     * Default time to keep the SDP record and the connection after the last listener is gone, long
+     * enough for an activity to be recreated or for the next screen to register.
+     */
+    public static final long DEFAULT_TEARDOWN_GRACE_PERIOD_MS = 5_000;
+
     /** Compound interface that listens to both device and service state changes. */
     public interface ProfileListener
             extends HidDeviceApp.DeviceStateListener, ServiceStateListener {}
@@ -48,6 +63,7 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
                 @Override
                 @MainThread
                 public void onServiceStateChanged(BluetoothHidDevice proxy) {
+                    hidDeviceProfile.reconcileIfStale();
                     synchronized (lock) {
                         if (proxy == null) {
                             if (isAppRegistered) {
@@ -59,8 +75,8 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
                             hidDeviceApp.registerApp(proxy);
                         }
                         updateDeviceList();
-                        for (ProfileListener listener : listeners) {
-                            listener.onServiceStateChanged(proxy);
+                        for (Subscription subscription : subscriptions) {
+                            subscription.listener.onServiceStateChanged(proxy);
                         }
                     }
                 }
@@ -68,6 +84,7 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
                 @Override
                 @MainThread
                 public void onAppStatusChanged(BluetoothDevice pluggedDevice, boolean registered) {
+                    BluetoothDevice postponed;
                     synchronized (lock) {
                         if (isAppRegistered == registered) {
                             // We are already in the correct state.
@@ -75,20 +92,23 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
                         }
                         isAppRegistered = registered;
 
-                        for (ProfileListener listener : listeners) {
-                            listener.onAppStatusChanged(pluggedDevice, registered);
-                        }
-                        if (registered && waitingForDevice != null) {
-                            // Fulfill the postponed request to connect.
-                            requestConnect(waitingForDevice);
+                        for (Subscription subscription : subscriptions) {
+                            subscription.listener.onAppStatusChanged(pluggedDevice, registered);
                         }
+                        postponed = registered ? waitingForDevice : null;
+                    }
+                    if (postponed != null) {
+                        // Fulfill the postponed request to connect.
+                        requestConnect(postponed);
                     }
                 }
 
                 @Override
                 @MainThread
                 public void onConnectionStateChanged(BluetoothDevice device, int state) {
+                    hidDeviceProfile.reconcileIfStale();
                     synchronized (lock) {
+                        hidDeviceProfile.onConnectionStateChanged(device, state);
                         if (state == BluetoothProfile.STATE_CONNECTED) {
                             // A new connection was established. If we weren't expecting that, it
                             // must be an incoming one. In that case, we shouldn't try to disconnect
@@ -102,8 +122,8 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
                             }
                         }
                         updateDeviceList();
-                        for (ProfileListener listener : listeners) {
-                            listener.onConnectionStateChanged(device, state);
+                        for (Subscription subscription : subscriptions) {
+                            subscription.listener.onConnectionStateChanged(device, state);
                         }
                     }
                 }
@@ -111,33 +131,56 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
                 @Override
                 @MainThread
                 public void onGetReport(BluetoothDevice device, byte type, byte id, int bufferSize) {
-                    for (ProfileListener listener : listeners) {
-                        listener.onGetReport(device, type, id, bufferSize);
+                    for (Subscription subscription : subscriptions) {
+                        if (subscription.accepts(HidDeviceApp.EVENT_GET_REPORT)) {
+                            subscription.listener.onGetReport(device, type, id, bufferSize);
+                        }
                     }
                 }
 
                 @Override
                 @MainThread
                 public void onSetReport(BluetoothDevice device, byte type, byte id, byte[] data) {
-                    for (ProfileListener listener : listeners) {
-                        listener.onSetReport(device, type, id, data);
+                    for (Subscription subscription : subscriptions) {
+                        if (subscription.accepts(HidDeviceApp.EVENT_SET_REPORT)) {
+                            subscription.listener.onSetReport(device, type, id, data);
+                        }
                     }
                 }
 
                 @Override
                 @MainThread
                 public void onInterruptData(BluetoothDevice device, byte reportId, byte[] data) {
-                    for (ProfileListener listener : listeners) {
-                        listener.onInterruptData(device, reportId, data);
+                    for (Subscription subscription : subscriptions) {
+                        if (subscription.accepts(HidDeviceApp.EVENT_INTERRUPT_DATA)) {
+                            subscription.listener.onInterruptData(device, reportId, data);
+                        }
                     }
                 }
             };
 
+    /** Listener together with the host report callbacks it wants to receive. */
+    private static final class Subscription {
+        final ProfileListener listener;
+        final int interests;
+
+        Subscription(ProfileListener listener, int interests) {
+            this.listener = listener;
+            this.interests = interests;
+        }
+
+        boolean accepts(int event) {
+            return (interests & event) != 0;
+        }
+    }
+
     static final class InstanceHolder {
         static final HidDataSender INSTANCE = createInstance();
 
         private static HidDataSender createInstance() {
-            return new HidDataSender(new HidDeviceApp(), new HidDeviceProfile());
+            HidMetrics metrics = new HidMetrics();
+            return new HidDataSender(
+                    new HidDeviceApp(metrics), new HidDeviceProfile(metrics), metrics);
         }
     }
 
@@ -151,11 +194,45 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
 
     private final HidDeviceApp hidDeviceApp;
     private final HidDeviceProfile hidDeviceProfile;
+    private final HidMetrics metrics;
 
     private final Object lock = new Object();
 
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+    // Users of the SDP record, the connection and the battery receiver.
+    @GuardedBy("lock")
+    private final SessionRefCount session =
+            new SessionRefCount(
+                    new SessionRefCount.Scheduler() {
+                        @Override
+                        public void postDelayed(Runnable task, long delayMillis) {
+                            // The task is the token, so that it can be removed by itself.
+                            mainThreadHandler.postDelayed(
+                                    () -> {
+                                        synchronized (lock) {
+                                            task.run();
+                                        }
+                                    },
+                                    task,
+                                    delayMillis);
+                        }
+
+                        @Override
+                        public void removeCallbacks(Runnable task) {
+                            mainThreadHandler.removeCallbacksAndMessages(task);
+                        }
+                    },
+                    this::tearDown,
+                    DEFAULT_TEARDOWN_GRACE_PERIOD_MS);
+
+    // Application context, set while the profile, the app and the battery receiver are in use.
     @GuardedBy("lock")
-    private final Set<ProfileListener> listeners = new ArraySet<>();
+    @Nullable
+    private Context context;
+
+    // Copy-on-write: replaced under the lock, iterated without it.
+    private volatile Subscription[] subscriptions = new Subscription[0];
 
     @GuardedBy("lock")
     @Nullable
@@ -171,10 +248,13 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
     /**
      * @param hidDeviceApp HID Device App interface.
      * @param hidDeviceProfile Interface to manage paired HID Host devices.
+     * @param metrics Counters shared by the app and the profile.
      */
-    private HidDataSender(HidDeviceApp hidDeviceApp, HidDeviceProfile hidDeviceProfile) {
+    private HidDataSender(
+            HidDeviceApp hidDeviceApp, HidDeviceProfile hidDeviceProfile, HidMetrics metrics) {
         this.hidDeviceApp = checkNotNull(hidDeviceApp);
         this.hidDeviceProfile = checkNotNull(hidDeviceProfile);
+        this.metrics = checkNotNull(metrics);
     }
 
     /**
@@ -188,7 +268,8 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
 
     /**
      * Ensure that the HID Device SDP record is registered and start listening for the profile proxy
-     * and HID Host connection state changes.
+     * and HID Host connection state changes. The host report callbacks are not delivered, see
+     * {@link #register(Context, ProfileListener, int)}.
      *
      * @param context Context that is required to listen for battery charge.
      * @param listener Callback that will receive the profile events.
@@ -196,17 +277,38 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
      */
     @MainThread
     public HidDeviceProfile register(Context context, ProfileListener listener) {
+        return register(context, listener, 0);
+    }
+
+    /**
+     * Ensure that the HID Device SDP record is registered and start listening for the profile proxy
+     * and HID Host connection state changes, as well as the selected host report callbacks.
+     *
+     * @param context Context that is required to listen for battery charge.
+     * @param listener Callback that will receive the profile events.
+     * @param interests Combination of {@link HidDeviceApp#EVENT_GET_REPORT}, {@link
+     *     HidDeviceApp#EVENT_SET_REPORT} and {@link HidDeviceApp#EVENT_INTERRUPT_DATA}.
+     * @return Interface for managing the paired HID Host devices.
+     */
+    @MainThread
+    public HidDeviceProfile register(Context context, ProfileListener listener, int interests) {
         synchronized (lock) {
-            if (!listeners.add(listener)) {
+            Subscription[] current = subscriptions;
+            if (indexOf(current, listener) >= 0) {
                 // This user is already registered
                 return hidDeviceProfile;
             }
-            if (listeners.size() > 1) {
-                // There are already some users
+            Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = new Subscription(checkNotNull(listener), interests);
+            subscriptions = updated;
+            hidDeviceApp.setEventInterests(getInterests(updated));
+            if (!session.acquire()) {
+                // There are already some users, or the last one has just left.
                 return hidDeviceProfile;
             }
 
             context = checkNotNull(context).getApplicationContext();
+            this.context = context;
             hidDeviceProfile.registerServiceListener(context, profileListener);
             hidDeviceApp.registerDeviceListener(profileListener);
             context.registerReceiver(
@@ -216,25 +318,55 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
     }
 
     /**
-     * Stop listening for the profile events. When the last listener is unregistered, the SD record
-     * for HID Device will also be unregistered.
+     * Stop listening for the profile events. When the last listener is unregistered, and no other
+     * one registers during the grace period, the SDP record for HID Device will also be
+     * unregistered.
      *
-     * @param context Context that is required to listen for battery charge.
      * @param listener Callback to unregisterDeviceListener.
      */
     @MainThread
-    public void unregister(Context context, ProfileListener listener) {
+    public void unregister(ProfileListener listener) {
         synchronized (lock) {
-            if (!listeners.remove(listener)) {
+            Subscription[] current = subscriptions;
+            int index = indexOf(current, listener);
+            if (index < 0) {
                 // This user was removed before
                 return;
             }
-            if (!listeners.isEmpty()) {
-                // Some users are still left
+            Subscription[] updated = new Subscription[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+            subscriptions = updated;
+            hidDeviceApp.setEventInterests(getInterests(updated));
+
+            // A rotation or a switch to another screen brings a new user right away, tearing
+            // everything down would force the host to reconnect.
+            session.release();
+        }
+    }
+
+    /**
+     * Set how long to keep the SDP record and the connection after the last listener is gone.
+     *
+     * @param millis Grace period in milliseconds, {@code 0} to tear down immediately.
+     */
+    @MainThread
+    public void setTeardownGracePeriod(long millis) {
+        checkArgument(millis >= 0, "Bad grace period");
+        synchronized (lock) {
+            session.setGracePeriod(millis);
+        }
+    }
+
+    @MainThread
+    private void tearDown() {
+        synchronized (lock) {
+            Context context = this.context;
+            if (subscriptions.length > 0 || context == null) {
                 return;
             }
+            this.context = null;
 
-            context = checkNotNull(context).getApplicationContext();
             context.unregisterReceiver(batteryReceiver);
             hidDeviceApp.unregisterDeviceListener();
 
@@ -261,6 +393,7 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
      */
     @MainThread
     public void requestConnect(BluetoothDevice device) {
+        hidDeviceProfile.reconcileIfStale();
         synchronized (lock) {
             waitingForDevice = device;
             if (!isAppRegistered) {
@@ -272,8 +405,9 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
             updateDeviceList();
 
             if (device != null && device.equals(connectedDevice)) {
-                for (ProfileListener listener : listeners) {
-                    listener.onConnectionStateChanged(device, BluetoothProfile.STATE_CONNECTED);
+                for (Subscription subscription : subscriptions) {
+                    subscription.listener.onConnectionStateChanged(
+                            device, BluetoothProfile.STATE_CONNECTED);
                 }
             }
         }
@@ -283,13 +417,91 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
     @Override
     @MainThread
     public void sendGamepad(GamepadState state) {
-        synchronized (lock) {
-            if (connectedDevice != null) {
-                hidDeviceApp.sendGamepad(state);
+        // No locking here: the app reads the connection snapshot that updateDeviceList publishes.
+        hidDeviceApp.sendGamepad(state);
+    }
+
+    /**
+     * Set the consumer of the rumble commands sent by the host. Only the newest command is kept
+     * until the consumer takes it.
+     *
+     * @param listener Callback that is woken up on a binder thread, or {@code null} to ignore the
+     *     rumble.
+     */
+    @MainThread
+    public void setRumbleListener(@Nullable RumbleMailbox.Listener listener) {
+        hidDeviceApp.setRumbleListener(listener);
+    }
+
+    /**
+     * Get the number of gamepad reports that were skipped because nothing has changed since the
+     * previous one.
+     *
+     * @return Suppressed reports count.
+     */
+    @MainThread
+    public long getSuppressedReportCount() {
+        return hidDeviceApp.getSuppressedReportCount();
+    }
+
+    /**
+     * Get the time that the gamepad reports spend on their way from the touch screen to the
+     * Bluetooth stack, e.g. {@code getReportLatency().get(Stage.TOTAL).getPercentile(99)}.
+     *
+     * @return Latency histograms of every stage of the report pipeline.
+     */
+    @MainThread
+    public ReportLatency getReportLatency() {
+        return metrics.getLatency();
+    }
+
+    /** @return Counters of the reports, host requests and connection changes. */
+    @MainThread
+    public HidMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Print the current metrics, e.g. from {@code dumpsys activity}.
+     *
+     * @param writer Where to print to.
+     * @param prefix Indentation for every line.
+     */
+    @MainThread
+    public void dump(PrintWriter writer, String prefix) {
+        writer.print(prefix);
+        writer.println(metrics.snapshot());
+        ReportLatency latency = metrics.getLatency();
+        for (ReportLatency.Stage stage : ReportLatency.Stage.values()) {
+            writer.print(prefix);
+            writer.print(stage);
+            writer.print(": ");
+            writer.println(latency.get(stage));
+        }
+    }
+
+    private static int indexOf(Subscription[] subscriptions, ProfileListener listener) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i].listener == listener) {
+                return i;
             }
         }
+        return -1;
     }
 
+    private static int getInterests(Subscription[] subscriptions) {
+        int interests = 0;
+        for (Subscription subscription : subscriptions) {
+            interests |= subscription.interests;
+        }
+        return interests;
+    }
+
+    /**
+     * Reconcile the device connections with what we want them to be. The device list is read from
+     * memory, callers ask the service for the real one once in a while with {@link
+     * HidDeviceProfile#reconcileIfStale()}, before they take the lock.
+     */
     @MainThread
     private void updateDeviceList() {
         synchronized (lock) {
@@ -306,15 +518,7 @@ public class HidDataSender implements GamepadReport.GamepadDataSender {
             }
 
             // If there is nothing going on, and we want to connect, then do it.
-            if (hidDeviceProfile
-                            .getDevicesMatchingConnectionStates(
-                                    new int[] {
-                                        BluetoothProfile.STATE_CONNECTED,
-                                        BluetoothProfile.STATE_CONNECTING,
-                                        BluetoothProfile.STATE_DISCONNECTING
-                                    })
-                            .isEmpty()
-                    && waitingForDevice != null) {
+            if (hidDeviceProfile.isIdle() && waitingForDevice != null) {
                 hidDeviceProfile.connect(waitingForDevice);
             }
 
@@ -24,17 +24,50 @@ import android.bluetooth.BluetoothHidDevice;
 import android.bluetooth.BluetoothProfile;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.HandlerThread;
+import android.os.Message;
+import android.os.Process;
+import androidx.annotation.AnyThread;
 import androidx.annotation.BinderThread;
 import androidx.annotation.MainThread;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 import android.util.Log;
+import com.ginkage.gamepad.core.BatteryReport;
+import com.ginkage.gamepad.core.GamepadReport;
+import com.ginkage.gamepad.core.GamepadState;
+import com.ginkage.gamepad.core.HidConstants;
+import com.ginkage.gamepad.core.HidMetrics;
+import com.ginkage.gamepad.core.HostEventDispatcher;
+import com.ginkage.gamepad.core.PacedReportSender;
+import com.ginkage.gamepad.core.PidEffectPool;
+import com.ginkage.gamepad.core.ReportLatency;
+import com.ginkage.gamepad.core.ReportPacer;
+import com.ginkage.gamepad.core.ReportStore;
+import com.ginkage.gamepad.core.ReportTransport;
+import com.ginkage.gamepad.core.RumbleMailbox;
 
 /** Helper class that holds all data about the HID Device's SDP record and wraps data sending. */
 public class HidDeviceApp
         implements GamepadReport.GamepadDataSender,
                 BatteryReport.BatteryDataSender {
 
+    /** Subscription to {@link DeviceStateListener#onGetReport}. */
+    public static final int EVENT_GET_REPORT = HostEventDispatcher.EVENT_GET_REPORT;
+    /** Subscription to {@link DeviceStateListener#onSetReport}. */
+    public static final int EVENT_SET_REPORT = HostEventDispatcher.EVENT_SET_REPORT;
+    /** Subscription to {@link DeviceStateListener#onInterruptData}. */
+    public static final int EVENT_INTERRUPT_DATA = HostEventDispatcher.EVENT_INTERRUPT_DATA;
+
     private static final String TAG = "HidDeviceApp";
+    // Checked once, so that the binder callbacks don't build log strings that nobody reads.
+    private static final boolean DEBUG = Log.isLoggable(TAG, Log.DEBUG);
+
+    private static final int MSG_APP_STATUS_CHANGED = 0;
+    private static final int MSG_CONNECTION_STATE_CHANGED = 1;
+    private static final int MSG_GET_REPORT = 2;
+    private static final int MSG_SET_REPORT = 3;
+    private static final int MSG_INTERRUPT_DATA = 4;
 
     /** Used to call back when a device connection state has changed. */
     public interface DeviceStateListener {
@@ -63,11 +96,40 @@ public class HidDeviceApp
 
     private final GamepadReport gamepadReport = new GamepadReport();
     private final BatteryReport batteryReport = new BatteryReport();
-    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final Handler mainThreadHandler =
+            new Handler(Looper.getMainLooper(), this::handleMessage);
+
+    // Binder callbacks are passed on with pooled messages and events, so they don't allocate. Host
+    // report callbacks that nobody subscribed to are not passed to the main thread at all.
+    private final HostEventDispatcher<BluetoothDevice> dispatcher;
+
+    // Completed input reports for the GET_REPORT requests that arrive on the binder thread.
+    private final ReportStore reportStore = new ReportStore();
+
+    // All reports are sent from this thread, so that a busy UI thread never delays them. It only
+    // runs while the SDP record is registered.
+    @Nullable private HandlerThread senderThread;
+    @Nullable private volatile Handler senderHandler;
 
-    @Nullable private BluetoothDevice device;
+    // Counters and latency histograms, updated from the UI, sender and binder threads.
+    private final HidMetrics metrics;
+    private final ReportLatency latency;
+
+    // Keeps us within the QoS settings: one full bucket per report gives one report per latency
+    // interval, and the report that is sent is always the most recent one.
+    private final PacedReportSender gamepadSender;
+    private final Runnable flushGamepad = this::onFlushGamepad;
+
+    // Rumble commands are decoded on the binder thread, only the newest one is ever played.
+    private final RumbleMailbox rumbleMailbox;
+    @Nullable private volatile RumbleMailbox.Listener rumbleListener;
+
+    // Effects that the host has created, played back with a few bytes per Effect Operation.
+    private final PidEffectPool effectPool = new PidEffectPool(HidConstants.PID_MAX_EFFECTS);
+
+    // Replaced as a whole on every change, so that other threads can read it without locking.
+    private volatile ConnectionSnapshot connection = ConnectionSnapshot.EMPTY;
     @Nullable private DeviceStateListener deviceStateListener;
-    @Nullable private BluetoothHidDevice proxy;
     private boolean registered;
 
     /** Callback to receive the HID Device's SDP record state. */
@@ -93,7 +155,9 @@ public class HidDeviceApp
                 public void onGetReport(
                         BluetoothDevice device, byte type, byte id, int bufferSize) {
                     super.onGetReport(device, type, id, bufferSize);
-                    Log.d(TAG, "onGetReport: type=" + type + ", id=" + id);
+                    if (DEBUG) {
+                        Log.d(TAG, "onGetReport: type=" + type + ", id=" + id);
+                    }
                     HidDeviceApp.this.onGetReport(device, type, id, bufferSize);
                 }
 
@@ -101,7 +165,9 @@ public class HidDeviceApp
                 @BinderThread
                 public void onSetReport(BluetoothDevice device, byte type, byte id, byte[] data) {
                     super.onSetReport(device, type, id, data);
-                    Log.d(TAG, "onSetReport: type=" + type + ", id=" + id);
+                    if (DEBUG) {
+                        Log.d(TAG, "onSetReport: type=" + type + ", id=" + id);
+                    }
                     HidDeviceApp.this.onSetReport(device, type, id, data);
                 }
 
@@ -109,11 +175,37 @@ public class HidDeviceApp
                 @BinderThread
                 public void onInterruptData(BluetoothDevice device, byte reportId, byte[] data) {
                     super.onInterruptData(device, reportId, data);
-                    Log.d(TAG, "onInterruptData: reportId=" + reportId);
+                    if (DEBUG) {
+                        Log.d(TAG, "onInterruptData: reportId=" + reportId);
+                    }
                     HidDeviceApp.this.onInterruptData(device, reportId, data);
                 }
             };
 
+    /** @param metrics Where to count the reports and the host requests. */
+    HidDeviceApp(HidMetrics metrics) {
+        this.metrics = checkNotNull(metrics);
+        latency = metrics.getLatency();
+        rumbleMailbox = new RumbleMailbox(metrics);
+        dispatcher =
+                new HostEventDispatcher<>(
+                        metrics,
+                        (what, event) ->
+                                mainThreadHandler.obtainMessage(what, event).sendToTarget());
+        gamepadSender =
+                new PacedReportSender(
+                        HidConstants.ID_GAMEPAD,
+                        gamepadReport.getReport().length,
+                        new ReportPacer(
+                                HidConstants.QOS_TOKEN_RATE,
+                                HidConstants.QOS_TOKEN_BUCKET_SIZE,
+                                HidConstants.QOS_TOKEN_BUCKET_SIZE),
+                        metrics,
+                        System::nanoTime);
+        reportStore.register(HidConstants.ID_GAMEPAD, gamepadReport.getReport().length);
+        reportStore.register(HidConstants.ID_BATTERY, batteryReport.getReport().length);
+    }
+
     /**
      * Register the HID Device's SDP record.
      *
@@ -122,8 +214,14 @@ public class HidDeviceApp
     @SuppressLint("MissingPermission")
     @MainThread
     void registerApp(BluetoothHidDevice proxy) {
-        this.proxy = checkNotNull(proxy);
-        this.proxy.registerApp(
+        if (senderThread == null) {
+            senderThread = new HandlerThread("HidSender", Process.THREAD_PRIORITY_URGENT_DISPLAY);
+            senderThread.start();
+            senderHandler = new Handler(senderThread.getLooper());
+        }
+        connection = connection.withProxy(checkNotNull(proxy));
+        metrics.increment(HidMetrics.Counter.APP_REGISTRATIONS);
+        proxy.registerApp(
                 Constants.SDP_SETTINGS,
                 null,
                 Constants.QOS_SETTINGS,
@@ -135,10 +233,21 @@ public class HidDeviceApp
     @SuppressLint("MissingPermission")
     @MainThread
     void unregisterApp() {
+        BluetoothHidDevice proxy = connection.proxy;
         if (proxy != null && registered) {
             proxy.unregisterApp();
         }
-        proxy = null;
+        connection = connection.withProxy(null);
+
+        Handler handler = senderHandler;
+        if (senderThread != null && handler != null) {
+            // The reports that are already queued still go out. A flush that waits for the pacer
+            // is dropped with the thread, which has to be forgotten after the last flush it runs.
+            handler.post(gamepadSender::cancelFlush);
+            senderThread.quitSafely();
+            senderThread = null;
+            senderHandler = null;
+        }
     }
 
     /**
@@ -155,6 +264,38 @@ public class HidDeviceApp
     @MainThread
     void unregisterDeviceListener() {
         deviceStateListener = null;
+        dispatcher.setInterests(0);
+    }
+
+    /**
+     * Choose the host report callbacks that the listener receives. The connection and app status
+     * changes are always delivered.
+     *
+     * @param interests Combination of {@link #EVENT_GET_REPORT}, {@link #EVENT_SET_REPORT} and
+     *     {@link #EVENT_INTERRUPT_DATA}.
+     */
+    @MainThread
+    void setEventInterests(int interests) {
+        dispatcher.setInterests(interests);
+    }
+
+    /**
+     * Set the consumer of the rumble commands. These, as well as the effect management reports,
+     * are not delivered to the {@link DeviceStateListener#onInterruptData} callback.
+     *
+     * @param listener Callback that is woken up on the binder thread when a command arrives, or
+     *     {@code null} to ignore the rumble.
+     */
+    @MainThread
+    void setRumbleListener(@Nullable RumbleMailbox.Listener listener) {
+        rumbleListener = listener;
+        if (listener == null) {
+            rumbleMailbox.clear();
+        } else if (!rumbleMailbox.isEmpty()) {
+            // The mailbox only wakes its consumer when it stops being empty, and the previous
+            // listener may have gone away before taking the command, e.g. on a rotation.
+            listener.onRumbleAvailable(rumbleMailbox);
+        }
     }
 
     /**
@@ -164,116 +305,236 @@ public class HidDeviceApp
      */
     @MainThread
     public void setDevice(@Nullable BluetoothDevice device) {
-        this.device = device;
+        connection = connection.withDevice(device);
+        metrics.setHost(device != null ? device.getAddress() : null);
+    }
+
+    /**
+     * Get the number of gamepad reports that were not sent because they were identical to the
+     * previous one.
+     *
+     * @return Suppressed reports count.
+     */
+    @AnyThread
+    public long getSuppressedReportCount() {
+        return metrics.get(HidMetrics.Counter.REPORTS_SUPPRESSED);
     }
 
-    @SuppressLint("MissingPermission")
     @Override
     @MainThread
     public void sendGamepad(GamepadState state) {
+        long start = System.nanoTime();
+
         // Store the current values in case the host will try to read them with a GET_REPORT call.
         byte[] report = gamepadReport.setValue(state);
-        if (proxy != null && device != null) {
-            proxy.sendReport(device, Constants.ID_GAMEPAD, report);
+        reportStore.publish(HidConstants.ID_GAMEPAD, report);
+        if (!connection.isConnected()) {
+            return;
+        }
+
+        Handler handler = senderHandler;
+        if (handler == null) {
+            return;
+        }
+
+        long eventTime = state.getEventTime();
+        if (gamepadSender.publish(report, eventTime)) {
+            handler.post(flushGamepad);
         }
+        if (eventTime != 0) {
+            latency.record(ReportLatency.Stage.DISPATCH, start - eventTime);
+        }
+        latency.record(ReportLatency.Stage.ENCODE, System.nanoTime() - start);
     }
 
-    @SuppressLint("MissingPermission")
     @Override
     @MainThread
     public void sendBatteryLevel(float level) {
         // Store the current values in case the host will try to read them with a GET_REPORT call.
-        byte[] report = batteryReport.setValue(level);
-        if (proxy != null && device != null) {
-            proxy.sendReport(device, Constants.ID_BATTERY, report);
+        byte[] report = batteryReport.setValue(level).clone();
+        reportStore.publish(HidConstants.ID_BATTERY, report);
+        Handler handler = senderHandler;
+        if (handler != null) {
+            handler.post(() -> sendBatteryReport(report));
+        }
+    }
+
+    @WorkerThread
+    private void sendBatteryReport(byte[] report) {
+        ConnectionSnapshot connection = this.connection;
+        if (connection.isConnected()) {
+            metrics.countReport(connection.sendReport(HidConstants.ID_BATTERY, report));
+        }
+    }
+
+    @WorkerThread
+    private void onFlushGamepad() {
+        long delay = gamepadSender.flush(connection);
+        Handler handler = senderHandler;
+        if (delay > 0 && handler != null) {
+            handler.removeCallbacks(flushGamepad);
+            handler.postDelayed(flushGamepad, (delay + 999_999) / 1_000_000);
         }
     }
 
     @BinderThread
     private void onConnectionStateChanged(BluetoothDevice device, int state) {
-        mainThreadHandler.post(() -> {
-            if (deviceStateListener != null) {
-                deviceStateListener.onConnectionStateChanged(device, state);
-            }
-        });
+        metrics.increment(HidMetrics.Counter.CONNECTION_CHANGES);
+        if (state == BluetoothProfile.STATE_DISCONNECTED) {
+            // Effect memory belongs to the host session, the next host starts from scratch.
+            effectPool.reset();
+        }
+        dispatcher.dispatch(
+                HostEventDispatcher.ALWAYS,
+                MSG_CONNECTION_STATE_CHANGED,
+                device,
+                (byte) 0,
+                (byte) 0,
+                state,
+                null);
     }
 
     @BinderThread
     private void onAppStatusChanged(BluetoothDevice pluggedDevice, boolean registered) {
-        mainThreadHandler.post(() -> {
-            if (deviceStateListener != null) {
-                deviceStateListener.onAppStatusChanged(pluggedDevice, registered);
-            }
-        });
+        int value = registered ? 1 : 0;
+        dispatcher.dispatch(
+                HostEventDispatcher.ALWAYS,
+                MSG_APP_STATUS_CHANGED,
+                pluggedDevice,
+                (byte) 0,
+                (byte) 0,
+                value,
+                null);
     }
 
     @SuppressLint("MissingPermission")
     @BinderThread
     private void onGetReport(BluetoothDevice device, byte type, byte id, int bufferSize) {
+        metrics.increment(HidMetrics.Counter.GET_REPORT);
+        ConnectionSnapshot connection = this.connection;
+        BluetoothHidDevice proxy = connection.proxy;
         if (proxy != null) {
-            if (type != BluetoothHidDevice.REPORT_TYPE_INPUT) {
+            if (type == BluetoothHidDevice.REPORT_TYPE_FEATURE
+                    && id == HidConstants.ID_PID_BLOCK_LOAD) {
+                connection.forDevice(device).replyReport(type, id, effectPool.getBlockLoad());
+            } else if (type != BluetoothHidDevice.REPORT_TYPE_INPUT) {
                 proxy.reportError(device, BluetoothHidDevice.ERROR_RSP_UNSUPPORTED_REQ);
-            } else if (!replyReport(device, type, id)) {
+            } else if (!replyReport(connection.forDevice(device), type, id, bufferSize)) {
                 proxy.reportError( device, BluetoothHidDevice.ERROR_RSP_INVALID_RPT_ID);
             }
         }
-        mainThreadHandler.post(() -> {
-            if (deviceStateListener != null) {
-                deviceStateListener.onGetReport(device, type, id, bufferSize);
-            }
-        });
+        dispatcher.dispatch(EVENT_GET_REPORT, MSG_GET_REPORT, device, type, id, bufferSize, null);
     }
 
     @SuppressLint("MissingPermission")
     @BinderThread
     private void onSetReport(BluetoothDevice device, byte type, byte id, byte[] data) {
+        metrics.increment(HidMetrics.Counter.SET_REPORT);
+        if (type == BluetoothHidDevice.REPORT_TYPE_FEATURE
+                && id == HidConstants.ID_PID_CREATE_EFFECT) {
+            effectPool.create(data);
+        } else if (type == BluetoothHidDevice.REPORT_TYPE_OUTPUT) {
+            onOutputReport(id, data);
+        }
+        BluetoothHidDevice proxy = connection.proxy;
         if (proxy != null) {
             proxy.reportError(device, BluetoothHidDevice.ERROR_RSP_SUCCESS);
         }
-        mainThreadHandler.post(() -> {
-            if (deviceStateListener != null) {
-                deviceStateListener.onSetReport(device, type, id, data);
-            }
-        });
+        dispatcher.dispatch(EVENT_SET_REPORT, MSG_SET_REPORT, device, type, id, 0, data);
     }
 
     @BinderThread
     private void onInterruptData(BluetoothDevice device, byte reportId, byte[] data) {
-        mainThreadHandler.post(() -> {
-            if (deviceStateListener != null) {
-                deviceStateListener.onInterruptData(device, reportId, data);
-            }
-        });
+        metrics.increment(HidMetrics.Counter.INTERRUPT_DATA);
+        if (!onOutputReport(reportId, data)) {
+            dispatcher.dispatch(
+                    EVENT_INTERRUPT_DATA, MSG_INTERRUPT_DATA, device, (byte) 0, reportId, 0, data);
+        }
     }
 
-    @SuppressLint("MissingPermission")
+    /**
+     * Handle the force feedback reports, whether they came on the interrupt or control channel.
+     *
+     * @return {@code true} if this was a force feedback report.
+     */
     @BinderThread
-    private boolean replyReport(BluetoothDevice device, byte type, byte id) {
-        @Nullable byte[] report = getReport(id);
-        if (report == null) {
-            return false;
+    private boolean onOutputReport(byte id, byte[] data) {
+        RumbleMailbox.Listener listener = rumbleListener;
+        long command;
+        boolean wake;
+        switch (id) {
+            case HidConstants.ID_FEEDBACK:
+                wake = listener != null && rumbleMailbox.post(data);
+                break;
+            case HidConstants.ID_PID_SET_EFFECT:
+                effectPool.set(data);
+                return true;
+            case HidConstants.ID_PID_EFFECT_OPERATION:
+                // The pool keeps track of the effects whether or not anyone plays them.
+                command = effectPool.operate(data);
+                wake = listener != null && rumbleMailbox.offer(command);
+                break;
+            case HidConstants.ID_PID_BLOCK_FREE:
+                command = effectPool.free(data);
+                wake = listener != null && rumbleMailbox.offer(command);
+                break;
+            default:
+                return false;
+        }
+        // The listener may have been replaced meanwhile, setRumbleListener() only wakes the new one
+        // if the command was already there.
+        listener = rumbleListener;
+        if (wake && listener != null) {
+            listener.onRumbleAvailable(rumbleMailbox);
         }
+        return true;
+    }
 
-        if (proxy != null) {
-            proxy.replyReport(device, type, id, report);
+    @MainThread
+    private boolean handleMessage(Message msg) {
+        if (!(msg.obj instanceof HostEventDispatcher.Event)) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        HostEventDispatcher.Event<BluetoothDevice> event =
+                (HostEventDispatcher.Event<BluetoothDevice>) msg.obj;
+        DeviceStateListener listener = deviceStateListener;
+        if (listener != null) {
+            switch (msg.what) {
+                case MSG_APP_STATUS_CHANGED:
+                    listener.onAppStatusChanged(event.getDevice(), event.getValue() != 0);
+                    break;
+                case MSG_CONNECTION_STATE_CHANGED:
+                    listener.onConnectionStateChanged(event.getDevice(), event.getValue());
+                    break;
+                case MSG_GET_REPORT:
+                    listener.onGetReport(
+                            event.getDevice(), event.getType(), event.getId(), event.getValue());
+                    break;
+                case MSG_SET_REPORT:
+                    listener.onSetReport(
+                            event.getDevice(), event.getType(), event.getId(), event.getData());
+                    break;
+                case MSG_INTERRUPT_DATA:
+                    listener.onInterruptData(event.getDevice(), event.getId(), event.getData());
+                    break;
+                default:
+                    break;
+            }
         }
+        dispatcher.recycle(event);
         return true;
     }
 
     @BinderThread
-    @Nullable
-    private byte[] getReport(byte id) {
-        switch (id) {
-            case Constants.ID_GAMEPAD:
-                return gamepadReport.getReport();
-
-            case Constants.ID_BATTERY:
-                return batteryReport.getReport();
-
-            default: // fall out
+    private boolean replyReport(ReportTransport transport, byte type, byte id, int bufferSize) {
+        @Nullable byte[] report = reportStore.read(id, bufferSize);
+        if (report == null) {
+            Log.e(TAG, "Invalid report ID requested: " + id);
+            return false;
         }
 
-        Log.e(TAG, "Invalid report ID requested: " + id);
-        return null;
+        transport.replyReport(type, id, report);
+        return true;
     }
 }
@@ -23,13 +23,21 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothHidDevice;
 import android.bluetooth.BluetoothProfile;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.os.ParcelUuid;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import androidx.annotation.MainThread;
+import android.util.ArrayMap;
 import android.util.Log;
-import java.util.ArrayList;
+import com.ginkage.gamepad.core.HidMetrics;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 /** Wrapper for BluetoothHidDevice profile that manages paired HID Host devices. */
 public class HidDeviceProfile {
@@ -40,6 +48,14 @@ public class HidDeviceProfile {
     private static final ParcelUuid HID_UUID =
             ParcelUuid.fromString("00001124-0000-1000-8000-00805f9b34fb");
 
+    // The table follows the callbacks, this only catches up with anything that was missed.
+    private static final long RECONCILE_INTERVAL_MS = 60_000;
+    private static final int[] ACTIVE_STATES = {
+        BluetoothProfile.STATE_CONNECTED,
+        BluetoothProfile.STATE_CONNECTING,
+        BluetoothProfile.STATE_DISCONNECTING
+    };
+
     /** Used to call back when a profile proxy connection state has changed. */
     public interface ServiceStateListener {
         /**
@@ -52,31 +68,59 @@ public class HidDeviceProfile {
     }
 
     private final BluetoothAdapter bluetoothAdapter;
+    private final HidMetrics metrics;
     @Nullable private ServiceStateListener serviceStateListener;
     @Nullable private BluetoothHidDevice service;
 
-    HidDeviceProfile() {
+    // Answers the connection queries without calling into the service.
+    private final ConnectionStateTable connectionStates = new ConnectionStateTable();
+    private long reconcileTime;
+
+    // Whether each device is a HID Host, by address. Filled on the first lookup and dropped when
+    // the device's services or bond state change, so that getUuids() is rarely called.
+    private final Object capabilityLock = new Object();
+
+    @GuardedBy("capabilityLock")
+    private final Map<String, Boolean> profileSupport = new ArrayMap<>();
+
+    private final BroadcastReceiver deviceReceiver =
+            new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    onDeviceChanged(intent);
+                }
+            };
+
+    @Nullable private Context context;
+
+    /** @param metrics Where to count the calls into the profile service. */
+    HidDeviceProfile(HidMetrics metrics) {
         this.bluetoothAdapter = checkNotNull(BluetoothAdapter.getDefaultAdapter());
+        this.metrics = checkNotNull(metrics);
     }
 
     /**
-     * Check if a device supports HID Host profile.
+     * Check if a device supports HID Host profile. Only the first check of a device reads its
+     * service records.
      *
      * @param device Device to check.
      * @return {@code true} if the HID Host profile is supported, {@code false} otherwise.
      */
     @SuppressLint("MissingPermission")
     public boolean isProfileSupported(BluetoothDevice device) {
-        // If a device reports itself as a HID Device, then it isn't a HID Host.
-        ParcelUuid[] uuidArray = device.getUuids();
-        if (uuidArray != null) {
-            for (ParcelUuid uuid : uuidArray) {
-                if (HID_UUID.equals(uuid) || HOGP_UUID.equals(uuid)) {
-                    return false;
-                }
+        String address = device.getAddress();
+        synchronized (capabilityLock) {
+            Boolean supported = profileSupport.get(address);
+            if (supported != null) {
+                return supported;
             }
         }
-        return true;
+        metrics.increment(HidMetrics.Counter.BINDER_CALLS);
+        boolean supported = isHidHost(device.getUuids());
+        synchronized (capabilityLock) {
+            profileSupport.put(address, supported);
+        }
+        return supported;
     }
 
     /**
@@ -91,6 +135,11 @@ public class HidDeviceProfile {
         serviceStateListener = checkNotNull(listener);
         bluetoothAdapter.getProfileProxy(
                 context, new ServiceListener(), BluetoothProfile.HID_DEVICE);
+
+        IntentFilter intentFilter = new IntentFilter(BluetoothDevice.ACTION_UUID);
+        intentFilter.addAction(BluetoothDevice.ACTION_BOND_STATE_CHANGED);
+        context.registerReceiver(deviceReceiver, intentFilter);
+        this.context = context;
     }
 
     /** Close the profile service connection. */
@@ -105,20 +154,45 @@ public class HidDeviceProfile {
             service = null;
         }
         serviceStateListener = null;
+        connectionStates.clear();
+
+        if (context != null) {
+            context.unregisterReceiver(deviceReceiver);
+            context = null;
+        }
+        // Nothing would invalidate the cached values until we register again.
+        synchronized (capabilityLock) {
+            profileSupport.clear();
+        }
     }
 
     /**
-     * Examine the device for current connection status.
+     * Record a connection state change reported by the service.
+     *
+     * @param device Device that was connected or disconnected.
+     * @param state New connection state, see {@link BluetoothProfile#EXTRA_STATE}.
+     */
+    @MainThread
+    void onConnectionStateChanged(BluetoothDevice device, int state) {
+        connectionStates.update(device, state);
+    }
+
+    /** Re-read the connection states from the service, if that wasn't done for a while. */
+    @MainThread
+    void reconcileIfStale() {
+        if (SystemClock.elapsedRealtime() - reconcileTime >= RECONCILE_INTERVAL_MS) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Examine the device for current connection status. This doesn't call into the service.
      *
      * @param device Remote Bluetooth device to examine.
      * @return A Bluetooth profile connection state.
      */
-    @SuppressLint("MissingPermission")
     public int getConnectionState(BluetoothDevice device) {
-        if (service == null) {
-            return BluetoothProfile.STATE_DISCONNECTED;
-        }
-        return service.getConnectionState(checkNotNull(device));
+        return connectionStates.getState(checkNotNull(device));
     }
 
     /**
@@ -130,7 +204,11 @@ public class HidDeviceProfile {
     @MainThread
     void connect(BluetoothDevice device) {
         if (service != null && isProfileSupported(device)) {
-            service.connect(device);
+            metrics.increment(HidMetrics.Counter.BINDER_CALLS);
+            if (service.connect(device)) {
+                // Until the callback arrives, so that we don't try to connect twice.
+                connectionStates.update(device, BluetoothProfile.STATE_CONNECTING);
+            }
         }
     }
 
@@ -143,7 +221,10 @@ public class HidDeviceProfile {
     @MainThread
     void disconnect(BluetoothDevice device) {
         if (service != null && isProfileSupported(device)) {
-            service.disconnect(device);
+            metrics.increment(HidMetrics.Counter.BINDER_CALLS);
+            if (service.disconnect(device)) {
+                connectionStates.update(device, BluetoothProfile.STATE_DISCONNECTING);
+            }
         }
     }
 
@@ -152,28 +233,77 @@ public class HidDeviceProfile {
      *
      * @return Connected devices list.
      */
-    @SuppressLint("MissingPermission")
     @MainThread
     List<BluetoothDevice> getConnectedDevices() {
-        if (service == null) {
-            return new ArrayList<>();
-        }
-        return service.getConnectedDevices();
+        return connectionStates.getDevicesMatching(BluetoothProfile.STATE_CONNECTED);
     }
 
     /**
      * Get all devices that match one of the specified connection states.
      *
-     * @param states List of states we are interested in.
+     * @param states List of states we are interested in, except the disconnected one.
      * @return List of devices that match one of the states.
      */
-    @SuppressLint("MissingPermission")
     @MainThread
     List<BluetoothDevice> getDevicesMatchingConnectionStates(int[] states) {
+        return connectionStates.getDevicesMatching(states);
+    }
+
+    /** @return {@code true} if no device is connected, connecting or disconnecting. */
+    @MainThread
+    boolean isIdle() {
+        return connectionStates.isIdle();
+    }
+
+    @MainThread
+    private void onDeviceChanged(Intent intent) {
+        BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+        if (device == null) {
+            return;
+        }
+        String address = device.getAddress();
+        synchronized (capabilityLock) {
+            if (BluetoothDevice.ACTION_UUID.equals(intent.getAction())) {
+                // The broadcast carries the fresh service records, no need to ask for them again.
+                Parcelable[] uuids = intent.getParcelableArrayExtra(BluetoothDevice.EXTRA_UUID);
+                if (uuids != null) {
+                    profileSupport.put(address, isHidHost(uuids));
+                    return;
+                }
+            }
+            profileSupport.remove(address);
+        }
+    }
+
+    /**
+     * @param uuids Services of the device, or {@code null} if they are not known yet.
+     * @return {@code false} if the device is a HID Device, which means it isn't a HID Host.
+     */
+    private static boolean isHidHost(@Nullable Parcelable[] uuids) {
+        if (uuids != null) {
+            for (Parcelable uuid : uuids) {
+                if (HID_UUID.equals(uuid) || HOGP_UUID.equals(uuid)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Replace the table contents with the states known to the service. */
+    @SuppressLint("MissingPermission")
+    @MainThread
+    private void reconcile() {
+        connectionStates.clear();
+        reconcileTime = SystemClock.elapsedRealtime();
         if (service == null) {
-            return new ArrayList<>();
+            return;
+        }
+        metrics.increment(HidMetrics.Counter.BINDER_CALLS);
+        for (BluetoothDevice device : service.getDevicesMatchingConnectionStates(ACTIVE_STATES)) {
+            metrics.increment(HidMetrics.Counter.BINDER_CALLS);
+            connectionStates.update(device, service.getConnectionState(device));
         }
-        return service.getDevicesMatchingConnectionStates(states);
     }
 
     private final class ServiceListener implements BluetoothProfile.ServiceListener {
@@ -181,6 +311,7 @@ public class HidDeviceProfile {
         @MainThread
         public void onServiceConnected(int profile, BluetoothProfile proxy) {
             service = (BluetoothHidDevice) proxy;
+            reconcile();
             if (serviceStateListener != null) {
                 serviceStateListener.onServiceStateChanged(service);
             } else {
@@ -192,6 +323,7 @@ public class HidDeviceProfile {
         @MainThread
         public void onServiceDisconnected(int profile) {
             service = null;
+            connectionStates.clear();
             if (serviceStateListener != null) {
                 serviceStateListener.onServiceStateChanged(null);
             }
@@ -133,7 +133,7 @@ public class AvailableDevicesFragment extends PreferenceFragmentCompat {
     @Override
     public void onDestroy() {
         unregisterStateReceiver();
-        hidDataSender.unregister(getContext(), profileListener);
+        hidDataSender.unregister(profileListener);
         super.onDestroy();
     }
 
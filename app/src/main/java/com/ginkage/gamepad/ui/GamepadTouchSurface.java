@@ -0,0 +1,425 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.ui;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.SeekBar;
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.constraintlayout.widget.ConstraintLayout;
+import com.ginkage.gamepad.R;
+import com.ginkage.gamepad.core.GamepadReport.GamepadDataSender;
+import com.ginkage.gamepad.core.GamepadState;
+import com.ginkage.gamepad.core.GamepadStateHolder;
+import com.ginkage.gamepad.input.DpadQuantizer;
+import com.ginkage.gamepad.input.HitGrid;
+import com.ginkage.gamepad.input.OneEuroFilter;
+import com.ginkage.gamepad.input.PointerTracker;
+import com.ginkage.gamepad.input.ResponseCurve;
+import com.ginkage.gamepad.input.StickMapper;
+import com.ginkage.gamepad.input.TouchMapping;
+
+/**
+ * Gamepad layout that handles the touch input of all its controls in one place. The child views
+ * only define where the controls are and what they look like: every touch event is intercepted,
+ * its pointers are hit-tested against a grid of the control bounds, and the changes to all the
+ * controls are committed as one transaction per touch sample.
+ */
+public class GamepadTouchSurface extends ConstraintLayout {
+    /** Receives the control presses, e.g. to give haptic feedback. */
+    public interface Listener {
+        /** A finger has just pressed one of the controls. */
+        @MainThread
+        void onControlPressed();
+    }
+
+    private static final int TYPE_BUTTON = 0;
+    private static final int TYPE_DPAD = 1;
+    private static final int TYPE_LEFT_STICK = 2;
+    private static final int TYPE_RIGHT_STICK = 3;
+    private static final int TYPE_L2 = 4;
+    private static final int TYPE_R2 = 5;
+
+    // Child view ID, control type and button mask of every control.
+    private static final int[][] CONTROLS = {
+        {R.id.button_a, TYPE_BUTTON, GamepadState.BUTTON_A},
+        {R.id.button_b, TYPE_BUTTON, GamepadState.BUTTON_B},
+        {R.id.button_x, TYPE_BUTTON, GamepadState.BUTTON_X},
+        {R.id.button_y, TYPE_BUTTON, GamepadState.BUTTON_Y},
+        {R.id.button_l1, TYPE_BUTTON, GamepadState.BUTTON_L1},
+        {R.id.button_r1, TYPE_BUTTON, GamepadState.BUTTON_R1},
+        {R.id.button_l3, TYPE_BUTTON, GamepadState.BUTTON_L3},
+        {R.id.button_r3, TYPE_BUTTON, GamepadState.BUTTON_R3},
+        {R.id.button_view, TYPE_BUTTON, GamepadState.BUTTON_VIEW},
+        {R.id.button_menu, TYPE_BUTTON, GamepadState.BUTTON_MENU},
+        {R.id.button_home, TYPE_BUTTON, GamepadState.BUTTON_HOME},
+        {R.id.button_record, TYPE_BUTTON, GamepadState.BUTTON_RECORD},
+        {R.id.dpad, TYPE_DPAD, 0},
+        {R.id.stick_left, TYPE_LEFT_STICK, 0},
+        {R.id.stick_right, TYPE_RIGHT_STICK, 0},
+        {R.id.seekbar_l2, TYPE_L2, 0},
+        {R.id.seekbar_r2, TYPE_R2, 0},
+    };
+
+    // Small enough for every cell to overlap just one or two controls.
+    private static final int CELL_SIZE = 64;
+
+    // Stick jitter filter, in fractions of the stick size. Removes the tremor of a resting thumb,
+    // while a flick across the stick lags by just a few milliseconds.
+    private static final float FILTER_MIN_CUTOFF_HZ = 1;
+    private static final float FILTER_BETA = 8;
+    private static final float FILTER_DERIVATIVE_CUTOFF_HZ = 1;
+    private static final float FILTER_HYSTERESIS = 0.003f;
+
+    private final GamepadStateHolder stateHolder = new GamepadStateHolder(this::sendState);
+    private final PointerTracker pointerTracker = new PointerTracker();
+    private final HitGrid hitGrid = new HitGrid(CELL_SIZE);
+    private final View[] views = new View[CONTROLS.length];
+    private final Rect bounds = new Rect();
+
+    // Control bounds from the last layout pass, empty for the controls that aren't shown.
+    private final int[] lefts = new int[CONTROLS.length];
+    private final int[] tops = new int[CONTROLS.length];
+    private final int[] rights = new int[CONTROLS.length];
+    private final int[] bottoms = new int[CONTROLS.length];
+    private boolean mappingsStale = true;
+
+    // Lookup tables for the current control sizes, rebuilt when a control is resized.
+    private final StickMapper[] stickMappers = new StickMapper[CONTROLS.length];
+
+    // Jitter filters for both axes of every stick.
+    private final OneEuroFilter[] xFilters = new OneEuroFilter[CONTROLS.length];
+    private final OneEuroFilter[] yFilters = new OneEuroFilter[CONTROLS.length];
+    @Nullable private DpadQuantizer dpadQuantizer;
+
+    private ResponseCurve responseCurve = ResponseCurve.LINEAR;
+    private float dpadDeadZone;
+    private float dpadDiagonalDegrees = 45;
+
+    @Nullable private Listener listener;
+    @Nullable private GamepadDataSender dataSender;
+
+    // State being changed by the current transaction.
+    private GamepadState state;
+
+    public GamepadTouchSurface(Context context) {
+        this(context, null);
+    }
+
+    public GamepadTouchSurface(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        for (int control = 0; control < CONTROLS.length; control++) {
+            int type = CONTROLS[control][1];
+            if (type == TYPE_LEFT_STICK || type == TYPE_RIGHT_STICK) {
+                xFilters[control] = newStickFilter();
+                yFilters[control] = newStickFilter();
+            }
+        }
+    }
+
+    /** @param listener Callback that will receive the control presses. */
+    @MainThread
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Change the shape of the stick response. Takes effect with the next layout pass.
+     *
+     * @param responseCurve Response curve for both sticks.
+     */
+    @MainThread
+    public void setResponseCurve(ResponseCurve responseCurve) {
+        this.responseCurve = responseCurve;
+        mappingsStale = true;
+        requestLayout();
+    }
+
+    /**
+     * Change the dpad sectors, see {@link DpadQuantizer}. Takes effect with the next layout pass.
+     *
+     * @param deadZone Distance from the center that reports no direction.
+     * @param diagonalDegrees Width of each diagonal sector in degrees.
+     */
+    @MainThread
+    public void setDpadShape(float deadZone, float diagonalDegrees) {
+        dpadDeadZone = deadZone;
+        dpadDiagonalDegrees = diagonalDegrees;
+        mappingsStale = true;
+        requestLayout();
+    }
+
+    /** @param dataSender Where to send the gamepad state to, once per touch sample. */
+    @MainThread
+    public void setDataSender(@Nullable GamepadDataSender dataSender) {
+        this.dataSender = dataSender;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+
+        // Most layout passes move nothing, only rebuild what the new bounds have changed.
+        boolean moved = changed;
+        for (int control = 0; control < CONTROLS.length; control++) {
+            View view = findViewById(CONTROLS[control][0]);
+            views[control] = view;
+            if (view != null && view.getVisibility() == VISIBLE) {
+                // Controls may be nested, map their bounds into our coordinates.
+                view.getDrawingRect(bounds);
+                offsetDescendantRectToMyCoords(view, bounds);
+            } else {
+                bounds.setEmpty();
+            }
+            boolean resized =
+                    bounds.width() != rights[control] - lefts[control]
+                            || bounds.height() != bottoms[control] - tops[control];
+            if (resized || bounds.left != lefts[control] || bounds.top != tops[control]) {
+                lefts[control] = bounds.left;
+                tops[control] = bounds.top;
+                rights[control] = bounds.right;
+                bottoms[control] = bounds.bottom;
+                moved = true;
+            }
+            if (resized || mappingsStale) {
+                buildMapping(control, bounds.width(), bounds.height());
+            }
+        }
+        mappingsStale = false;
+        if (moved) {
+            hitGrid.build(right - left, bottom - top, lefts, tops, rights, bottoms);
+        }
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        // The children never see the touch events, all of them are handled here.
+        return true;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        state = stateHolder.begin();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Deliver every digitizer sample as soon as it arrives, not once per frame.
+                requestUnbufferedDispatch(event);
+                onPointerDown(event, event.getActionIndex());
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                onPointerDown(event, event.getActionIndex());
+                break;
+            case MotionEvent.ACTION_MOVE:
+                onMove(event);
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_POINTER_UP:
+                int control = pointerTracker.release(event.getPointerId(event.getActionIndex()));
+                if (control != PointerTracker.NO_CONTROL) {
+                    releaseControl(control);
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                for (int i = 0; i < CONTROLS.length; i++) {
+                    if (pointerTracker.releaseControl(i)) {
+                        releaseControl(i);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        commit(event.getEventTime());
+        return true;
+    }
+
+    private void onPointerDown(MotionEvent event, int pointerIndex) {
+        float x = event.getX(pointerIndex);
+        float y = event.getY(pointerIndex);
+        int control = hitGrid.hitTest(x, y);
+        if (control == HitGrid.NO_CONTROL
+                || !pointerTracker.press(event.getPointerId(pointerIndex), control)) {
+            // Nothing there, or another finger is already holding it.
+            return;
+        }
+
+        if (CONTROLS[control][1] == TYPE_BUTTON) {
+            state.setButton(CONTROLS[control][2], true);
+            views[control].setPressed(true);
+        } else {
+            if (xFilters[control] != null) {
+                // A new touch, don't smooth it with where the previous one has ended.
+                xFilters[control].reset();
+                yFilters[control].reset();
+            }
+            moveControl(control, x, y, event.getEventTime());
+        }
+        if (listener != null) {
+            listener.onControlPressed();
+        }
+    }
+
+    private void onMove(MotionEvent event) {
+        int pointerCount = event.getPointerCount();
+
+        // Samples that were batched into this event, oldest first. They all go through the
+        // filters, but only the state after the last one is reported, with the whole event.
+        int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            for (int p = 0; p < pointerCount; p++) {
+                int control = pointerTracker.getControl(event.getPointerId(p));
+                if (control != PointerTracker.NO_CONTROL) {
+                    moveControl(
+                            control,
+                            event.getHistoricalX(p, h),
+                            event.getHistoricalY(p, h),
+                            event.getHistoricalEventTime(h));
+                }
+            }
+        }
+
+        for (int p = 0; p < pointerCount; p++) {
+            int control = pointerTracker.getControl(event.getPointerId(p));
+            if (control != PointerTracker.NO_CONTROL) {
+                moveControl(control, event.getX(p), event.getY(p), event.getEventTime());
+            }
+        }
+    }
+
+    /** @param eventTime Time of the touch sample, in {@code SystemClock.uptimeMillis()} base. */
+    private void moveControl(int control, float x, float y, long eventTime) {
+        // Position relative to the control.
+        float cx = x - hitGrid.getLeft(control);
+        float cy = y - hitGrid.getTop(control);
+
+        switch (CONTROLS[control][1]) {
+            case TYPE_DPAD:
+                if (dpadQuantizer != null) {
+                    state.setDpad(dpadQuantizer.toHat(cx, cy));
+                }
+                break;
+            case TYPE_LEFT_STICK:
+            case TYPE_RIGHT_STICK:
+                StickMapper mapper = stickMappers[control];
+                if (mapper != null) {
+                    int w = hitGrid.getWidth(control);
+                    int h = hitGrid.getHeight(control);
+                    long timeNanos = eventTime * 1_000_000;
+                    float fx = xFilters[control].filter(cx / w, timeNanos) * w;
+                    float fy = yFilters[control].filter(cy / h, timeNanos) * h;
+                    setStick(control, mapper.map(fx, fy));
+                }
+                break;
+            case TYPE_L2:
+            case TYPE_R2:
+                setTrigger(control, triggerValue(control, cx, hitGrid.getWidth(control)));
+                break;
+            default:
+                // Buttons don't move.
+                break;
+        }
+    }
+
+    private void releaseControl(int control) {
+        switch (CONTROLS[control][1]) {
+            case TYPE_BUTTON:
+                state.setButton(CONTROLS[control][2], false);
+                views[control].setPressed(false);
+                break;
+            case TYPE_DPAD:
+                state.setDpad(DpadQuantizer.HAT_CENTER);
+                break;
+            case TYPE_LEFT_STICK:
+                state.setLeftStick(GamepadState.STICK_CENTER, GamepadState.STICK_CENTER);
+                break;
+            case TYPE_RIGHT_STICK:
+                state.setRightStick(GamepadState.STICK_CENTER, GamepadState.STICK_CENTER);
+                break;
+            case TYPE_L2:
+            case TYPE_R2:
+                setTrigger(control, 0);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void buildMapping(int control, int w, int h) {
+        int type = CONTROLS[control][1];
+        boolean empty = w <= 0 || h <= 0;
+        if (type == TYPE_LEFT_STICK || type == TYPE_RIGHT_STICK) {
+            stickMappers[control] = empty ? null : new StickMapper(responseCurve, w, h);
+        } else if (type == TYPE_DPAD) {
+            dpadQuantizer =
+                    empty ? null : new DpadQuantizer(w, h, dpadDeadZone, dpadDiagonalDegrees);
+        }
+    }
+
+    private static OneEuroFilter newStickFilter() {
+        return new OneEuroFilter(
+                FILTER_MIN_CUTOFF_HZ,
+                FILTER_BETA,
+                FILTER_DERIVATIVE_CUTOFF_HZ,
+                FILTER_HYSTERESIS);
+    }
+
+    private void setStick(int control, int packed) {
+        int x = StickMapper.packedX(packed);
+        int y = StickMapper.packedY(packed);
+        if (CONTROLS[control][1] == TYPE_LEFT_STICK) {
+            state.setLeftStick(x, y);
+        } else {
+            state.setRightStick(x, y);
+        }
+    }
+
+    private int triggerValue(int control, float x, int w) {
+        View view = views[control];
+        int max = view instanceof SeekBar ? ((SeekBar) view).getMax() : 0;
+        int value = Math.round(max * (float) TouchMapping.toAxis(x, w) / TouchMapping.AXIS_MAX);
+        // A trigger that is turned upside down in the layout grows in the other direction.
+        return view.getRotation() == 180 ? max - value : value;
+    }
+
+    private void setTrigger(int control, int value) {
+        if (CONTROLS[control][1] == TYPE_L2) {
+            state.setL2(value);
+        } else {
+            state.setR2(value);
+        }
+        View view = views[control];
+        if (view instanceof SeekBar) {
+            ((SeekBar) view).setProgress(value);
+        }
+    }
+
+    /** @param eventTime Time of the touch sample, in {@code SystemClock.uptimeMillis()} base. */
+    private void commit(long eventTime) {
+        // Uptime is kept on the same monotonic clock as System.nanoTime().
+        stateHolder.commit(eventTime * 1_000_000);
+    }
+
+    private void sendState(GamepadState state) {
+        if (dataSender != null) {
+            dataSender.sendGamepad(state);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.ui;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Message;
+import android.os.Process;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import androidx.annotation.AnyThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import com.ginkage.gamepad.core.RumbleMailbox;
+
+/**
+ * Plays the vibration effects on a thread of its own, so that the touch input never waits for the
+ * vibrator binder calls. Effects are built once and kept in a small LRU cache.
+ */
+public class HapticsEngine implements RumbleMailbox.Listener {
+    private static final int MSG_ONE_SHOT = 0;
+    private static final int MSG_CANCEL = 1;
+    private static final int MSG_RUMBLE = 2;
+
+    private static final long ONE_SHOT_MS = 30;
+    private static final int MAX_CACHED_EFFECTS = 32;
+
+    private final HandlerThread thread =
+            new HandlerThread("Haptics", Process.THREAD_PRIORITY_DEFAULT);
+    private final Handler handler;
+    @Nullable private final Vibrator vibrator;
+
+    // Only accessed on the haptics thread.
+    @Nullable private VibrationEffect oneShot;
+
+    // Cached effects by their parameters, in parallel arrays so that the keys aren't boxed. The
+    // cache is small enough for a linear scan, the least recently used effect is replaced first.
+    private final long[] effectKeys = new long[MAX_CACHED_EFFECTS];
+    private final long[] effectUses = new long[MAX_CACHED_EFFECTS];
+    private final VibrationEffect[] effectValues = new VibrationEffect[MAX_CACHED_EFFECTS];
+    private int effectCount;
+    private long useClock;
+
+    /** @param context Context to get the vibrator from. */
+    public HapticsEngine(Context context) {
+        vibrator = context.getSystemService(Vibrator.class);
+        thread.start();
+        handler = new Handler(thread.getLooper(), this::handleMessage);
+    }
+
+    /** Short tick for a control being pressed. */
+    @AnyThread
+    public void oneShot() {
+        handler.obtainMessage(MSG_ONE_SHOT).sendToTarget();
+    }
+
+    @Override
+    @AnyThread
+    public void onRumbleAvailable(RumbleMailbox mailbox) {
+        handler.obtainMessage(MSG_RUMBLE, mailbox).sendToTarget();
+    }
+
+    /** Stop the current vibration. */
+    @AnyThread
+    public void cancel() {
+        handler.obtainMessage(MSG_CANCEL).sendToTarget();
+    }
+
+    /** Stop the vibration and the haptics thread. The engine can't be used after that. */
+    @AnyThread
+    public void release() {
+        cancel();
+        thread.quitSafely();
+    }
+
+    @WorkerThread
+    private boolean handleMessage(Message msg) {
+        if (vibrator == null) {
+            return true;
+        }
+        switch (msg.what) {
+            case MSG_ONE_SHOT:
+                play(getOneShot());
+                break;
+            case MSG_CANCEL:
+                vibrator.cancel();
+                break;
+            case MSG_RUMBLE:
+                playRumble(((RumbleMailbox) msg.obj).take());
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    /** @param command Newest command from the mailbox, older ones are never played. */
+    @WorkerThread
+    private void playRumble(long command) {
+        switch (RumbleMailbox.getKind(command)) {
+            case RumbleMailbox.KIND_STOP:
+                vibrator.cancel();
+                break;
+            case RumbleMailbox.KIND_ONE_SHOT:
+                play(getOneShot());
+                break;
+            case RumbleMailbox.KIND_WAVEFORM:
+                int amplitude = RumbleMailbox.getAmplitude(command);
+                int duration = RumbleMailbox.getDuration(command);
+                if (amplitude > 0 && duration > 0) {
+                    play(getWaveform(command & 0x00FF_FFFF_FFFF_FFFFL));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @WorkerThread
+    private void play(VibrationEffect effect) {
+        vibrator.cancel();
+        vibrator.vibrate(effect);
+    }
+
+    @WorkerThread
+    private VibrationEffect getOneShot() {
+        if (oneShot == null) {
+            oneShot = VibrationEffect.createOneShot(ONE_SHOT_MS, VibrationEffect.DEFAULT_AMPLITUDE);
+        }
+        return oneShot;
+    }
+
+    /**
+     * @param key Amplitude, duration, start delay and loop count, 16 bits each.
+     * @return Cached effect for the parameters.
+     */
+    @WorkerThread
+    private VibrationEffect getWaveform(long key) {
+        useClock++;
+        int oldest = 0;
+        for (int index = 0; index < effectCount; index++) {
+            if (effectKeys[index] == key) {
+                effectUses[index] = useClock;
+                return effectValues[index];
+            }
+            if (effectUses[index] < effectUses[oldest]) {
+                oldest = index;
+            }
+        }
+
+        int slot = effectCount < MAX_CACHED_EFFECTS ? effectCount++ : oldest;
+        VibrationEffect effect =
+                createWaveform(
+                        (int) (key >>> 48),
+                        (int) (key >>> 32) & 0xFFFF,
+                        (int) (key >>> 16) & 0xFFFF,
+                        (int) key & 0xFFFF);
+        effectKeys[slot] = key;
+        effectUses[slot] = useClock;
+        effectValues[slot] = effect;
+        return effect;
+    }
+
+    private static VibrationEffect createWaveform(
+            int amplitude, int duration, int startDelay, int loopCount) {
+        int count = (loopCount + 1) * 2;
+        long[] timings = new long[count];
+        int[] amplitudes = new int[count];
+        for (int index = 0; index < count; index++) {
+            if (index % 2 == 0) {
+                timings[index] = loopCount > 0 ? startDelay : duration;
+                amplitudes[index] = loopCount > 0 ? 0 : amplitude;
+            } else {
+                timings[index] = duration;
+                amplitudes[index] = amplitude;
+            }
+        }
+        return VibrationEffect.createWaveform(timings, amplitudes, -1);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.ui;
+
+import static android.app.PendingIntent.FLAG_IMMUTABLE;
+
+import android.annotation.SuppressLint;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHidDevice;
+import android.bluetooth.BluetoothProfile;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Binder;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Process;
+import android.text.TextUtils;
+import androidx.annotation.MainThread;
+import androidx.annotation.WorkerThread;
+import com.ginkage.gamepad.R;
+import com.ginkage.gamepad.bluetooth.HidDataSender;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Foreground service that owns the HID Device session. It keeps the SDP record registered and the
+ * host connected no matter which activities are running, so the UI can come and go without
+ * reconnecting, and the gamepad screen finds everything ready when it starts. Activities keep it
+ * alive with {@link #bind(Context, SessionCallback)}, and get the session from it.
+ *
+ * <p>Android P also requires that for HID profile app to remain registered, it should be
+ * "visible", i.e. have a running activity or a foreground service, which is what the ongoing
+ * notification is for.
+ */
+public class HidSessionService extends Service {
+    private static final int ONGOING_NOTIFICATION_ID = 0x1111;
+    private static final String NOTIFICATION_CHANNEL_ID = "WearMouseNotif";
+    private static final String NOTIFICATION_CHANNEL_NAME = "All notifications";
+
+    /** Receives the session once the service is bound. */
+    public interface SessionCallback {
+        /** @param dataSender Session that the service keeps registered. */
+        @MainThread
+        void onSessionReady(HidDataSender dataSender);
+    }
+
+    /** Hands the session over to the clients in this process. */
+    public final class LocalBinder extends Binder {
+        /** @return Session that the service keeps registered. */
+        public HidDataSender getDataSender() {
+            return hidDataSender;
+        }
+    }
+
+    private final IBinder binder = new LocalBinder();
+
+    // Notifications are built and posted here, so that the main thread never waits for them.
+    private final HandlerThread sessionThread =
+            new HandlerThread("HidSession", Process.THREAD_PRIORITY_BACKGROUND);
+    private Handler sessionHandler;
+
+    private HidDataSender hidDataSender;
+    @Nullable private NotificationManager notificationManager;
+
+    private final NotificationChannel notificationChannel =
+            new NotificationChannel(
+                    NOTIFICATION_CHANNEL_ID,
+                    NOTIFICATION_CHANNEL_NAME,
+                    NotificationManager.IMPORTANCE_LOW);
+
+    // Only accessed on the main thread.
+    private boolean isBound;
+    // Hosts that are connected, or on their way to or from it.
+    private final Set<BluetoothDevice> activeDevices = new HashSet<>();
+
+    private final HidDataSender.ProfileListener profileListener =
+            new HidDataSender.ProfileListener() {
+                @Override
+                @MainThread
+                public void onServiceStateChanged(BluetoothHidDevice proxy) {
+                    if (proxy == null) {
+                        // The connections went away with the service.
+                        activeDevices.clear();
+                        stopIfIdle();
+                    }
+                }
+
+                @Override
+                @MainThread
+                public void onAppStatusChanged(BluetoothDevice pluggedDevice, boolean registered) {}
+
+                @Override
+                @MainThread
+                @SuppressLint("MissingPermission")
+                public void onConnectionStateChanged(BluetoothDevice device, int state) {
+                    if (device != null) {
+                        if (state == BluetoothProfile.STATE_DISCONNECTED) {
+                            activeDevices.remove(device);
+                        } else {
+                            activeDevices.add(device);
+                        }
+                    }
+                    String name = device != null ? device.getName() : null;
+                    sessionHandler.post(() -> updateNotification(name, state));
+                    stopIfIdle();
+                }
+
+                @Override
+                @MainThread
+                public void onGetReport(BluetoothDevice device, byte type, byte id, int bufferSize) {}
+
+                @Override
+                @MainThread
+                public void onSetReport(BluetoothDevice device, byte type, byte id, byte[] data) {}
+
+                @Override
+                @MainThread
+                public void onInterruptData(BluetoothDevice device, byte reportId, byte[] data) {}
+            };
+
+    /**
+     * Start the session, or keep it running if it already is. It ends once nothing is bound to it
+     * and no host is connected.
+     *
+     * @param context Context to start and bind the service from.
+     * @return Connection to pass to {@link Context#unbindService} once the session isn't needed.
+     */
+    @MainThread
+    public static ServiceConnection bind(Context context) {
+        return bind(context, null);
+    }
+
+    /**
+     * Start the session, or keep it running if it already is, and get it once the service is
+     * bound. It ends once nothing is bound to it and no host is connected.
+     *
+     * @param context Context to start and bind the service from.
+     * @param callback Callback that will receive the session, unless it is unbound before that.
+     * @return Connection to pass to {@link Context#unbindService} once the session isn't needed.
+     */
+    @MainThread
+    public static ServiceConnection bind(Context context, @Nullable SessionCallback callback) {
+        Intent intent = new Intent(context, HidSessionService.class);
+        context.startForegroundService(intent);
+        ServiceConnection connection =
+                new ServiceConnection() {
+                    @Override
+                    public void onServiceConnected(ComponentName name, IBinder service) {
+                        if (callback != null && service instanceof LocalBinder) {
+                            callback.onSessionReady(((LocalBinder) service).getDataSender());
+                        }
+                    }
+
+                    @Override
+                    public void onServiceDisconnected(ComponentName name) {}
+                };
+        context.bindService(intent, connection, Context.BIND_AUTO_CREATE);
+        return connection;
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        notificationManager = getSystemService(NotificationManager.class);
+        if (notificationManager != null) {
+            notificationManager.createNotificationChannel(notificationChannel);
+        }
+        // Must happen right away for a service started with startForegroundService().
+        startForeground(
+                ONGOING_NOTIFICATION_ID,
+                buildNotification(getStateName(BluetoothProfile.STATE_DISCONNECTED)));
+
+        sessionThread.start();
+        sessionHandler = new Handler(sessionThread.getLooper());
+
+        // Profile proxy acquisition and app registration start now, not when an activity asks.
+        hidDataSender = HidDataSender.getInstance();
+        hidDataSender.register(this, profileListener);
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // The host connection doesn't outlive the process, so there is nothing to restart for.
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        isBound = true;
+        return binder;
+    }
+
+    @Override
+    public void onRebind(Intent intent) {
+        isBound = true;
+    }
+
+    @Override
+    public boolean onUnbind(Intent intent) {
+        isBound = false;
+        stopIfIdle();
+        return true;
+    }
+
+    @Override
+    public void onDestroy() {
+        hidDataSender.unregister(profileListener);
+
+        // A notification update that is still running when stopForeground() removes the
+        // notification would post it again, so the session thread removes it once more after the
+        // updates, as its last message.
+        sessionHandler.removeCallbacksAndMessages(null);
+        stopForeground(true);
+        sessionHandler.post(this::cancelNotification);
+        sessionThread.quitSafely();
+        super.onDestroy();
+    }
+
+    /** End the session when there's neither a UI nor a host that needs it. */
+    @MainThread
+    private void stopIfIdle() {
+        if (!isBound && activeDevices.isEmpty()) {
+            stopSelf();
+        }
+    }
+
+    @WorkerThread
+    private void updateNotification(@Nullable String device, int state) {
+        String text = getStateName(state);
+        if (!TextUtils.isEmpty(device)) {
+            text += ": " + device;
+        }
+        if (notificationManager != null) {
+            notificationManager.notify(ONGOING_NOTIFICATION_ID, buildNotification(text));
+        }
+    }
+
+    @WorkerThread
+    private void cancelNotification() {
+        if (notificationManager != null) {
+            notificationManager.cancel(ONGOING_NOTIFICATION_ID);
+        }
+    }
+
+    private Notification buildNotification(String text) {
+        Intent intent =
+                new Intent(this, MainSettingsActivity.class)
+                        .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                        .setAction(Intent.ACTION_MAIN)
+                        .addCategory(Intent.CATEGORY_LAUNCHER);
+
+        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent, FLAG_IMMUTABLE);
+
+        return new Notification.Builder(this, NOTIFICATION_CHANNEL_ID)
+                .setLocalOnly(true)
+                .setOngoing(true)
+                .setSmallIcon(getApplicationInfo().icon)
+                .setContentTitle(getString(R.string.app_name))
+                .setContentText(text)
+                .setContentIntent(pendingIntent)
+                .build();
+    }
+
+    private String getStateName(int state) {
+        switch (state) {
+            case BluetoothProfile.STATE_CONNECTED:
+                return getString(R.string.pref_bluetooth_connected);
+            case BluetoothProfile.STATE_CONNECTING:
+                return getString(R.string.pref_bluetooth_connecting);
+            case BluetoothProfile.STATE_DISCONNECTING:
+                return getString(R.string.pref_bluetooth_disconnecting);
+            case BluetoothProfile.STATE_DISCONNECTED:
+                return getString(R.string.pref_bluetooth_disconnected);
+            default:
+                return getString(R.string.pref_bluetooth_unavailable);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.ServiceConnection;
 import android.os.Bundle;
 import androidx.annotation.MainThread;
 import androidx.annotation.VisibleForTesting;
@@ -49,6 +50,8 @@ public class PairedDevicesFragment extends PreferenceFragmentCompat {
     private HidDeviceProfile hidDeviceProfile;
     private HidDataSender hidDataSender;
 
+    private ServiceConnection sessionConnection;
+
     private final List<Preference> bondedDevices = new ArrayList<>();
 
     private boolean scanReceiverRegistered;
@@ -62,6 +65,7 @@ public class PairedDevicesFragment extends PreferenceFragmentCompat {
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        sessionConnection = HidSessionService.bind(getContext());
         hidDataSender = HidDataSender.getInstance();
         hidDeviceProfile = hidDataSender.register(getContext(), profileListener);
         registerStateReceiver();
@@ -98,8 +102,8 @@ public class PairedDevicesFragment extends PreferenceFragmentCompat {
     @Override
     public void onDestroy() {
         unregisterStateReceiver();
-        hidDataSender.unregister(getContext(), profileListener);
-        getContext().stopService(new Intent(getContext(), NotificationService.class));
+        hidDataSender.unregister(profileListener);
+        getContext().unbindService(sessionConnection);
         super.onDestroy();
     }
 
@@ -221,13 +225,6 @@ public class PairedDevicesFragment extends PreferenceFragmentCompat {
                 public void onConnectionStateChanged(BluetoothDevice device, int state) {
                     updatePreferenceBondState(device);
 
-                    Context context = getContext();
-                    if (state != BluetoothProfile.STATE_DISCONNECTED) {
-                        Intent intent = NotificationService.buildIntent(device.getName(), state);
-                        intent.setClass(context, NotificationService.class);
-                        context.startService(intent);
-                    }
-
                     if (state == BluetoothProfile.STATE_CONNECTED) {
                         getActivity()
                                 .startActivity(new Intent(getActivity(), GamepadActivity.class));
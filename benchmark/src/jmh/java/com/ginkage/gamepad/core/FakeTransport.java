@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ginkage.gamepad.core;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Transport that swallows the reports instead of handing them to the Bluetooth stack. */
+class FakeTransport implements ReportTransport {
+    private static final String HOST_ADDRESS = "00:11:22:33:44:55";
+
+    private final Blackhole sink;
+    long sentReports;
+
+    FakeTransport(Blackhole sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public boolean sendReport(byte id, byte[] data) {
+        sink.consume(data);
+        sentReports++;
+        return true;
+    }
+
+    @Override
+    public boolean replyReport(byte type, byte id, byte[] data) {
+        sink.consume(data);
+        return true;
+    }
+
+    @Override
+    public String getHostAddress() {
+        return HOST_ADDRESS;
+    }
+}
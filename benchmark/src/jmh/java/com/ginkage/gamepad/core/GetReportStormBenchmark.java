@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import java.util.ArrayDeque;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * One second of a host polling the gamepad with GET_REPORT requests, handled the way {@code
+ * HidDeviceApp.onGetReport} does it: the reply comes from the report store on the binder thread,
+ * and the callback goes through a {@link HostEventDispatcher} to a queue that stands in for the
+ * main looper. The messages that reach the main thread and the seconds of the storm are listed in
+ * the results, with and without a GET_REPORT subscriber.
+ */
+@State(Scope.Thread)
+public class GetReportStormBenchmark {
+    // A host that polls once per millisecond instead of reading the interrupt channel.
+    private static final int POLLS_PER_SECOND = 1000;
+    private static final byte REPORT_TYPE_INPUT = 1;
+    private static final int SIZE = 16;
+
+    /**
+     * Main thread messages and seconds of the storm. JMH adds them up over all measurement
+     * iterations, {@code messages / stormSeconds} is the rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MainThreadRate {
+        public long messages;
+        public long stormSeconds;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            messages = 0;
+            stormSeconds = 0;
+        }
+
+        void record(long stormMessages) {
+            messages += stormMessages;
+            stormSeconds++;
+        }
+    }
+
+    @Param({"none", "getReport"})
+    public String subscription;
+
+    private final Object device = new Object();
+    private final ReportStore reportStore = new ReportStore();
+    private final ArrayDeque<HostEventDispatcher.Event<Object>> mainLooper = new ArrayDeque<>();
+    private final HostEventDispatcher<Object> dispatcher =
+            new HostEventDispatcher<>(new HidMetrics(), (what, event) -> mainLooper.add(event));
+    private FakeTransport transport;
+    private long posted;
+
+    @Setup
+    public void setUp(Blackhole sink) {
+        reportStore.register(HidConstants.ID_GAMEPAD, SIZE);
+        reportStore.publish(HidConstants.ID_GAMEPAD, new byte[SIZE]);
+        transport = new FakeTransport(sink);
+        dispatcher.setInterests(
+                subscription.equals("getReport") ? HostEventDispatcher.EVENT_GET_REPORT : 0);
+    }
+
+    @Benchmark
+    public void storm(Blackhole sink, MainThreadRate rate) {
+        long before = posted;
+        for (int i = 0; i < POLLS_PER_SECOND; i++) {
+            // Binder thread.
+            transport.replyReport(
+                    REPORT_TYPE_INPUT,
+                    HidConstants.ID_GAMEPAD,
+                    reportStore.read(HidConstants.ID_GAMEPAD, SIZE));
+            if (dispatcher.dispatch(
+                    HostEventDispatcher.EVENT_GET_REPORT,
+                    0,
+                    device,
+                    REPORT_TYPE_INPUT,
+                    HidConstants.ID_GAMEPAD,
+                    SIZE,
+                    null)) {
+                posted++;
+            }
+
+            // Main thread.
+            HostEventDispatcher.Event<Object> event = mainLooper.poll();
+            if (event != null) {
+                sink.consume(event.device);
+                dispatcher.recycle(event);
+            }
+        }
+        rate.record(posted - before);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import com.ginkage.gamepad.input.TouchMapping;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of a single stick MotionEvent on the UI thread when all of its historical samples are
+ * mapped and published, compared to the current sample only ({@code samplesPerEvent = 1}). The
+ * sender thread picks up the latest report once per event, as it would on a device.
+ */
+@State(Scope.Thread)
+public class HistoricalSamplesBenchmark {
+    private static final int SAMPLES = 1024;
+    private static final int SIZE = 400;
+
+    // A 240Hz digitizer batched into 60Hz frames gives 4 samples per event.
+    @Param({"1", "4", "8"})
+    public int samplesPerEvent;
+
+    private final float[] xs = new float[SAMPLES];
+    private final float[] ys = new float[SAMPLES];
+    private final GamepadState state = new GamepadState();
+    private final GamepadReport gamepadReport = new GamepadReport();
+    private final ReportStore reportStore = new ReportStore();
+    private final ReportPacer pacer =
+            new ReportPacer(
+                    HidConstants.QOS_TOKEN_RATE,
+                    HidConstants.QOS_TOKEN_BUCKET_SIZE,
+                    HidConstants.QOS_TOKEN_BUCKET_SIZE);
+    private long now;
+    private final PacedReportSender sender =
+            new PacedReportSender(
+                    HidConstants.ID_GAMEPAD, 16, pacer, new HidMetrics(), this::tick);
+    private FakeTransport transport;
+    private int index;
+
+    @Setup
+    public void setUp(Blackhole sink) {
+        reportStore.register(HidConstants.ID_GAMEPAD, 16);
+        transport = new FakeTransport(sink);
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            xs[i] = random.nextFloat() * SIZE;
+            ys[i] = random.nextFloat() * SIZE;
+        }
+    }
+
+    @Benchmark
+    public void stickEvent() {
+        for (int i = 0; i < samplesPerEvent; i++) {
+            index = (index + 1) & (SAMPLES - 1);
+            state.setLeftStick(
+                    TouchMapping.toAxis(xs[index], SIZE), TouchMapping.toAxis(ys[index], SIZE));
+            state.setEventTime(now);
+            byte[] report = gamepadReport.setValue(state);
+            reportStore.publish(HidConstants.ID_GAMEPAD, report);
+            sender.publish(report, state.getEventTime());
+        }
+        sender.flush(transport);
+    }
+
+    private long tick() {
+        now += pacer.getEmissionInterval();
+        return now;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import java.util.ArrayDeque;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A GET_REPORT callback handed over to the main thread, either with a capturing lambda per call or
+ * with a pooled event. The queue stands in for the main looper. With the gc profiler, {@code
+ * pooledEvent} must report {@code gc.alloc.rate.norm} of 0 B/op.
+ */
+@State(Scope.Thread)
+public class HostEventBenchmark {
+    private static final class Event {
+        Object device;
+        byte type;
+        byte id;
+        int bufferSize;
+    }
+
+    private final Object device = new Object();
+    private final ArrayDeque<Runnable> lambdaQueue = new ArrayDeque<>();
+    private final ArrayDeque<Event> eventQueue = new ArrayDeque<>();
+    private final EventPool<Event> eventPool = new EventPool<>(16, Event::new);
+    private byte id;
+
+    @Benchmark
+    public void capturingLambda(Blackhole sink) {
+        // Binder thread.
+        Object device = this.device;
+        byte type = 1;
+        byte id = ++this.id;
+        int bufferSize = 16;
+        lambdaQueue.add(() -> onGetReport(sink, device, type, id, bufferSize));
+
+        // Main thread.
+        lambdaQueue.poll().run();
+    }
+
+    @Benchmark
+    public void pooledEvent(Blackhole sink) {
+        // Binder thread.
+        Event event = eventPool.obtain();
+        event.device = device;
+        event.type = 1;
+        event.id = ++id;
+        event.bufferSize = 16;
+        eventQueue.add(event);
+
+        // Main thread.
+        event = eventQueue.poll();
+        onGetReport(sink, event.device, event.type, event.id, event.bufferSize);
+        event.device = null;
+        eventPool.recycle(event);
+    }
+
+    private static void onGetReport(
+            Blackhole sink, Object device, byte type, byte id, int bufferSize) {
+        sink.consume(device);
+        sink.consume(type);
+        sink.consume(id);
+        sink.consume(bufferSize);
+    }
+}
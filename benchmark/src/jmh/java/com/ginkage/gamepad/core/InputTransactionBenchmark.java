@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Replays a two-thumb touch trace through {@link GamepadStateHolder}. The changes are committed on
+ * their own, as the per-view listeners used to, once per digitizer sample, as the surface did with
+ * the historical samples, or once per touch event. The number of reports and commits of each mode
+ * is listed in the results. A replay that commits more than once per event in the per-event mode
+ * fails the benchmark.
+ */
+@State(Scope.Thread)
+public class InputTransactionBenchmark {
+    // 10 seconds of touch events at 120Hz, each with the two samples of a 240Hz digitizer.
+    private static final int EVENTS = 1200;
+    private static final int SAMPLES_PER_EVENT = 2;
+    private static final int SAMPLES = EVENTS * SAMPLES_PER_EVENT;
+    private static final long SAMPLE_INTERVAL_NANOS = 4_166_667;
+    private static final long EVENT_INTERVAL_NANOS = SAMPLES_PER_EVENT * SAMPLE_INTERVAL_NANOS;
+
+    @Param({"perChange", "perSample", "perEvent"})
+    public String commitMode;
+
+    // Trace: the left thumb keeps circling the stick, while the right one alternates between
+    // tapping A and dragging the right stick.
+    private final int[] leftX = new int[SAMPLES];
+    private final int[] leftY = new int[SAMPLES];
+    private final int[] rightX = new int[SAMPLES];
+    private final int[] rightY = new int[SAMPLES];
+    private final boolean[] buttonA = new boolean[EVENTS];
+
+    private final GamepadStateHolder holder = new GamepadStateHolder(state -> {});
+    private boolean perChange;
+    private boolean perSample;
+
+    @Setup
+    public void setUp() {
+        perChange = commitMode.equals("perChange");
+        perSample = perChange || commitMode.equals("perSample");
+        for (int i = 0; i < SAMPLES; i++) {
+            double angle = i * 2 * Math.PI / 180;
+            leftX[i] = (int) (GamepadState.STICK_CENTER + 20000 * Math.cos(angle));
+            leftY[i] = (int) (GamepadState.STICK_CENTER + 20000 * Math.sin(angle));
+
+            // 50 events per cycle: A is held for 10 and released for 10, then the stick moves.
+            int phase = i / SAMPLES_PER_EVENT % 50;
+            buttonA[i / SAMPLES_PER_EVENT] = phase < 10;
+            if (phase >= 20) {
+                rightX[i] = GamepadState.STICK_CENTER + (phase - 35) * 1500 + i % 2 * 300;
+                rightY[i] = GamepadState.STICK_CENTER - (phase - 35) * 700 - i % 2 * 150;
+            } else {
+                rightX[i] = GamepadState.STICK_CENTER;
+                rightY[i] = GamepadState.STICK_CENTER;
+            }
+        }
+    }
+
+    @Benchmark
+    public void replay(ReplayRates rates) {
+        long reports = holder.getSentReportCount();
+        long commits = holder.getCommitCount();
+        for (int i = 0; i < EVENTS; i++) {
+            long eventTime = i * EVENT_INTERVAL_NANOS;
+            GamepadState state = holder.begin();
+            for (int s = 0; s < SAMPLES_PER_EVENT; s++) {
+                int sample = i * SAMPLES_PER_EVENT + s;
+                long sampleTime = eventTime - (SAMPLES_PER_EVENT - 1 - s) * SAMPLE_INTERVAL_NANOS;
+                state.setLeftStick(leftX[sample], leftY[sample]);
+                if (perChange) {
+                    holder.commit(sampleTime);
+                    state = holder.begin();
+                }
+                state.setRightStick(rightX[sample], rightY[sample]);
+                if (perSample && s < SAMPLES_PER_EVENT - 1) {
+                    holder.commit(sampleTime);
+                    state = holder.begin();
+                }
+            }
+            if (perChange) {
+                holder.commit(eventTime);
+                state = holder.begin();
+            }
+            state.setButton(GamepadState.BUTTON_A, buttonA[i]);
+            holder.commit(eventTime);
+        }
+        if (!perSample && holder.getCommitCount() - commits != EVENTS) {
+            throw new IllegalStateException("More than one commit per touch event");
+        }
+        rates.record(holder, reports, commits, EVENTS * EVENT_INTERVAL_NANOS / 1e9);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Cost of the latency instrumentation: recording runs for every report, reading is rare. */
+@State(Scope.Thread)
+public class LatencyHistogramBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private long value;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(i * 997L % 20_000_000);
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        // Spread the values over a few orders of magnitude, from 1us to 16ms.
+        value = (value * 31 + 1000) & 0xFFFFFF;
+        histogram.record(value);
+    }
+
+    @Benchmark
+    public long percentile() {
+        return histogram.getPercentile(99.9);
+    }
+}
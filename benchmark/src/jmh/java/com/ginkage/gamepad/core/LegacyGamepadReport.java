@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+/** The field-per-control state and bit-by-bit encoder we used before the state was packed. */
+class LegacyGamepadReport {
+    boolean a;
+    boolean b;
+    boolean x;
+    boolean y;
+    boolean l1;
+    boolean r1;
+    boolean l3;
+    boolean r3;
+    boolean view;
+    boolean menu;
+    boolean home;
+    boolean record;
+    int dpad;
+    int lx = 32768;
+    int ly = 32768;
+    int rx = 32768;
+    int ry = 32768;
+    int l2;
+    int r2;
+
+    private final byte[] gamepadData = new byte[16];
+
+    byte[] setValue() {
+        gamepadData[0] = (byte) (lx & 0xFF);
+        gamepadData[1] = (byte) ((lx & 0xFF00) >> 8);
+        gamepadData[2] = (byte) (ly & 0xFF);
+        gamepadData[3] = (byte) ((ly & 0xFF00) >> 8);
+        gamepadData[4] = (byte) (rx & 0xFF);
+        gamepadData[5] = (byte) ((rx & 0xFF00) >> 8);
+        gamepadData[6] = (byte) (ry & 0xFF);
+        gamepadData[7] = (byte) ((ry & 0xFF00) >> 8);
+        gamepadData[8] = (byte) (l2 & 0xFF);
+        gamepadData[9] = (byte) ((l2 & 0xFF00) >> 8);
+        gamepadData[10] = (byte) (r2 & 0xFF);
+        gamepadData[11] = (byte) ((r2 & 0xFF00) >> 8);
+        gamepadData[12] = (byte) (dpad & 0xFF);
+
+        gamepadData[13] = 0;
+        gamepadData[13] |= (byte) (a ? 0x01 : 0);
+        gamepadData[13] |= (byte) (b ? 0x02 : 0);
+        gamepadData[13] |= (byte) (x ? 0x08 : 0);
+        gamepadData[13] |= (byte) (y ? 0x10 : 0);
+        gamepadData[13] |= (byte) (l1 ? 0x40 : 0);
+        gamepadData[13] |= (byte) (r1 ? 0x80 : 0);
+
+        gamepadData[14] = 0;
+        gamepadData[14] |= (byte) (view ? 0x04 : 0);
+        gamepadData[14] |= (byte) (menu ? 0x08 : 0);
+        gamepadData[14] |= (byte) (home ? 0x10 : 0);
+        gamepadData[14] |= (byte) (l3 ? 0x20 : 0);
+        gamepadData[14] |= (byte) (r3 ? 0x40 : 0);
+
+        gamepadData[15] = 0;
+        gamepadData[15] |= (byte) (record ? 0x01 : 0);
+
+        return gamepadData;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ginkage.gamepad.core;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reports and commits of a replayed input trace, listed in the results next to the time per
+ * replay. JMH adds the counters of all measurement iterations up, so they are plain totals:
+ * {@code reports / traceSeconds} is the report rate in trace time, which doesn't depend on how fast
+ * the machine is, and {@code reports / replays} is the number of reports per replay.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class ReplayRates {
+    public long reports;
+    public long commits;
+    public long replays;
+    public double traceSeconds;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        reports = 0;
+        commits = 0;
+        replays = 0;
+        traceSeconds = 0;
+    }
+
+    /**
+     * Account for one replay of the trace.
+     *
+     * @param holder Holder the trace was replayed through.
+     * @param reportsBefore {@link GamepadStateHolder#getSentReportCount()} before the replay.
+     * @param commitsBefore {@link GamepadStateHolder#getCommitCount()} before the replay.
+     * @param seconds Length of the trace in seconds.
+     */
+    public void record(
+            GamepadStateHolder holder, long reportsBefore, long commitsBefore, double seconds) {
+        reports += holder.getSentReportCount() - reportsBefore;
+        commits += holder.getCommitCount() - commitsBefore;
+        replays++;
+        traceSeconds += seconds;
+    }
+}
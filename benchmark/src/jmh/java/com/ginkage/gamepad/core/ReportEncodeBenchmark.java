@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ginkage.gamepad.core;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Cost of serializing the gamepad and battery state into the binary reports. */
+@State(Scope.Thread)
+public class ReportEncodeBenchmark {
+    private static final int SAMPLES = 1024;
+
+    // Only the buttons that the report defines, so that both encoders see the same input.
+    private static final int[] BUTTONS = {
+        GamepadState.BUTTON_A,
+        GamepadState.BUTTON_B,
+        GamepadState.BUTTON_X,
+        GamepadState.BUTTON_Y,
+        GamepadState.BUTTON_L1,
+        GamepadState.BUTTON_R1,
+        GamepadState.BUTTON_L3,
+        GamepadState.BUTTON_R3,
+        GamepadState.BUTTON_VIEW,
+        GamepadState.BUTTON_MENU,
+        GamepadState.BUTTON_HOME,
+        GamepadState.BUTTON_RECORD,
+    };
+
+    private final GamepadState[] states = new GamepadState[SAMPLES];
+    private final LegacyGamepadReport[] legacyStates = new LegacyGamepadReport[SAMPLES];
+    private final float[] levels = new float[SAMPLES];
+    private final GamepadReport gamepadReport = new GamepadReport();
+    private final BatteryReport batteryReport = new BatteryReport();
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            int buttons = 0;
+            for (int button : BUTTONS) {
+                if (random.nextBoolean()) {
+                    buttons |= button;
+                }
+            }
+            int lx = random.nextInt(65536);
+            int ly = random.nextInt(65536);
+            int rx = random.nextInt(65536);
+            int ry = random.nextInt(65536);
+            int l2 = random.nextInt(1024);
+            int r2 = random.nextInt(1024);
+            int dpad = random.nextInt(9);
+
+            GamepadState state = new GamepadState();
+            state.setButton(buttons, true);
+            state.setLeftStick(lx, ly);
+            state.setRightStick(rx, ry);
+            state.setL2(l2);
+            state.setR2(r2);
+            state.setDpad(dpad);
+            states[i] = state;
+
+            LegacyGamepadReport legacy = new LegacyGamepadReport();
+            legacy.a = state.isPressed(GamepadState.BUTTON_A);
+            legacy.b = state.isPressed(GamepadState.BUTTON_B);
+            legacy.x = state.isPressed(GamepadState.BUTTON_X);
+            legacy.y = state.isPressed(GamepadState.BUTTON_Y);
+            legacy.l1 = state.isPressed(GamepadState.BUTTON_L1);
+            legacy.r1 = state.isPressed(GamepadState.BUTTON_R1);
+            legacy.l3 = state.isPressed(GamepadState.BUTTON_L3);
+            legacy.r3 = state.isPressed(GamepadState.BUTTON_R3);
+            legacy.view = state.isPressed(GamepadState.BUTTON_VIEW);
+            legacy.menu = state.isPressed(GamepadState.BUTTON_MENU);
+            legacy.home = state.isPressed(GamepadState.BUTTON_HOME);
+            legacy.record = state.isPressed(GamepadState.BUTTON_RECORD);
+            legacy.lx = lx;
+            legacy.ly = ly;
+            legacy.rx = rx;
+            legacy.ry = ry;
+            legacy.l2 = l2;
+            legacy.r2 = r2;
+            legacy.dpad = dpad;
+            legacyStates[i] = legacy;
+            if (!Arrays.equals(gamepadReport.setValue(state), legacy.setValue())) {
+                throw new IllegalStateException("Encoders disagree on sample " + i);
+            }
+
+            levels[i] = random.nextFloat();
+        }
+    }
+
+    @Benchmark
+    public byte[] gamepadSetValue() {
+        return gamepadReport.setValue(states[next()]);
+    }
+
+    @Benchmark
+    public byte[] gamepadSetValueLegacy() {
+        return legacyStates[next()].setValue();
+    }
+
+    @Benchmark
+    public boolean gamepadStateEquals() {
+        return states[next()].contentEquals(states[(index + 1) & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public byte[] batterySetValue() {
+        return batteryReport.setValue(levels[next()]);
+    }
+
+    private int next() {
+        index = (index + 1) & (SAMPLES - 1);
+        return index;
+    }
+}
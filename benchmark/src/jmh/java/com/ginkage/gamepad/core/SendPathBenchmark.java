@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ginkage.gamepad.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Everything a single gamepad report goes through on its way to the Bluetooth stack, with the
+ * proxy replaced by a fake transport: encoding, the GET_REPORT store, the sender mailbox,
+ * duplicate detection, QoS pacing, metrics and latency recording. Both sides run on the benchmark
+ * thread, so thread hand-off costs are not included.
+ */
+@State(Scope.Thread)
+public class SendPathBenchmark {
+    private final GamepadState state = new GamepadState();
+    private final GamepadReport gamepadReport = new GamepadReport();
+    private final ReportStore reportStore = new ReportStore();
+    private final ReportPacer pacer =
+            new ReportPacer(
+                    HidConstants.QOS_TOKEN_RATE,
+                    HidConstants.QOS_TOKEN_BUCKET_SIZE,
+                    HidConstants.QOS_TOKEN_BUCKET_SIZE);
+    private final HidMetrics metrics = new HidMetrics();
+
+    // Simulated clock, moves by a full slot on every reading so the pacer never holds one back.
+    private long now;
+    private final PacedReportSender sender =
+            new PacedReportSender(HidConstants.ID_GAMEPAD, 16, pacer, metrics, this::tick);
+    private FakeTransport transport;
+    private int axis;
+
+    @Setup
+    public void setUp(Blackhole sink) {
+        reportStore.register(HidConstants.ID_GAMEPAD, 16);
+        transport = new FakeTransport(sink);
+    }
+
+    @Benchmark
+    public void sendChanged() {
+        axis = (axis + 1) & 0xFFFF;
+        state.setLeftStick(axis, axis);
+        state.setEventTime(now);
+        send();
+    }
+
+    @Benchmark
+    public void sendDuplicate() {
+        send();
+    }
+
+    @Benchmark
+    public boolean getReport() {
+        return transport.replyReport(
+                (byte) 1, HidConstants.ID_GAMEPAD, reportStore.read(HidConstants.ID_GAMEPAD, 0));
+    }
+
+    private void send() {
+        // UI thread.
+        byte[] report = gamepadReport.setValue(state);
+        reportStore.publish(HidConstants.ID_GAMEPAD, report);
+        sender.publish(report, state.getEventTime());
+
+        // Sender thread.
+        sender.flush(transport);
+    }
+
+    private long tick() {
+        now += pacer.getEmissionInterval();
+        return now;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.input;
+
+import com.ginkage.gamepad.core.GamepadState;
+import com.ginkage.gamepad.core.GamepadStateHolder;
+import com.ginkage.gamepad.core.ReplayRates;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Replays a stick session with and without the {@link OneEuroFilter}, and lists the reports each
+ * one produces, with the length of the session they were produced over, in the results. Also gives
+ * the cost of the filter per sample.
+ */
+@State(Scope.Thread)
+public class StickFilterBenchmark {
+    // 20 seconds of touch samples at 120Hz.
+    private static final int SAMPLES = 2400;
+    private static final long SAMPLE_INTERVAL_NANOS = 8_333_333;
+    private static final int SIZE = 300;
+
+    // The thumb rests for 2 seconds, then flicks to a new position within 150ms.
+    private static final int CYCLE = 264;
+    private static final int REST = 240;
+    private static final int FLICK = 18;
+
+    @Param({"off", "on"})
+    public String filter;
+
+    private final float[] xs = new float[SAMPLES];
+    private final float[] ys = new float[SAMPLES];
+    private final StickMapper mapper = new StickMapper(ResponseCurve.LINEAR, SIZE, SIZE);
+    private final OneEuroFilter xFilter = new OneEuroFilter(1, 8, 1, 0.003f);
+    private final OneEuroFilter yFilter = new OneEuroFilter(1, 8, 1, 0.003f);
+    private final GamepadStateHolder holder = new GamepadStateHolder(state -> {});
+    private boolean filtered;
+
+    @Setup
+    public void setUp() {
+        filtered = filter.equals("on");
+        Random random = new Random(7);
+        float fromX = 0.5f;
+        float fromY = 0.5f;
+        float toX = 0.5f;
+        float toY = 0.5f;
+        for (int i = 0; i < SAMPLES; i++) {
+            int phase = i % CYCLE;
+            if (phase == 0) {
+                fromX = toX;
+                fromY = toY;
+                toX = 0.1f + random.nextFloat() * 0.8f;
+                toY = 0.1f + random.nextFloat() * 0.8f;
+            }
+            float progress = phase < REST ? 0 : Math.min(1, (phase - REST) / (float) FLICK);
+            float x = fromX + (toX - fromX) * progress;
+            float y = fromY + (toY - fromY) * progress;
+
+            // 9Hz physiological tremor plus digitizer noise, under a pixel on average.
+            double tremor = 0.002 * Math.sin(i * 2 * Math.PI * 9 / 120);
+            xs[i] = (float) (x + tremor + random.nextGaussian() * 0.0025);
+            ys[i] = (float) (y + tremor * 0.7 + random.nextGaussian() * 0.0025);
+        }
+    }
+
+    @Benchmark
+    public void replay(ReplayRates rates) {
+        long reports = holder.getSentReportCount();
+        long commits = holder.getCommitCount();
+        xFilter.reset();
+        yFilter.reset();
+        for (int i = 0; i < SAMPLES; i++) {
+            long time = i * SAMPLE_INTERVAL_NANOS;
+            float x = xs[i];
+            float y = ys[i];
+            if (filtered) {
+                x = xFilter.filter(x, time);
+                y = yFilter.filter(y, time);
+            }
+            int packed = mapper.map(x * SIZE, y * SIZE);
+            GamepadState state = holder.begin();
+            state.setLeftStick(StickMapper.packedX(packed), StickMapper.packedY(packed));
+            holder.commit(time);
+        }
+        rates.record(holder, reports, commits, SAMPLES * SAMPLE_INTERVAL_NANOS / 1e9);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ginkage.gamepad.input;
+
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of mapping a single touch sample to stick and dpad values, as done per MotionEvent: the
+ * direct math of {@link TouchMapping} against the lookup tables of {@link StickMapper} and
+ * {@link DpadQuantizer}.
+ */
+@State(Scope.Thread)
+public class TouchMappingBenchmark {
+    private static final int SAMPLES = 1024;
+    private static final int SIZE = 400;
+
+    private final float[] xs = new float[SAMPLES];
+    private final float[] ys = new float[SAMPLES];
+    private final StickMapper linearMapper = new StickMapper(ResponseCurve.LINEAR, SIZE, SIZE);
+    private final StickMapper curveMapper =
+            new StickMapper(new ResponseCurve(0.1f, 0.05f, 0.15f, 1.5f, 0.3f), SIZE, SIZE);
+    private final DpadQuantizer dpadQuantizer = new DpadQuantizer(SIZE, SIZE, 0.2f, 45);
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            // Include some samples outside of the control, they must be clamped.
+            xs[i] = random.nextFloat() * SIZE * 1.2f - SIZE * 0.1f;
+            ys[i] = random.nextFloat() * SIZE * 1.2f - SIZE * 0.1f;
+        }
+    }
+
+    @Benchmark
+    public void stick(Blackhole sink) {
+        int i = next();
+        sink.consume(TouchMapping.toAxis(xs[i], SIZE));
+        sink.consume(TouchMapping.toAxis(ys[i], SIZE));
+    }
+
+    @Benchmark
+    public int stickLinearTable() {
+        int i = next();
+        return linearMapper.map(xs[i], ys[i]);
+    }
+
+    @Benchmark
+    public int stickCurveTable() {
+        int i = next();
+        return curveMapper.map(xs[i], ys[i]);
+    }
+
+    @Benchmark
+    public int dpad() {
+        int i = next();
+        return TouchMapping.toHat(xs[i], ys[i], SIZE, SIZE);
+    }
+
+    @Benchmark
+    public int dpadQuantizer() {
+        int i = next();
+        return dpadQuantizer.toHat(xs[i], ys[i]);
+    }
+
+    private int next() {
+        index = (index + 1) & (SAMPLES - 1);
+        return index;
+    }
+}
@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package com.ginkage.gamepad.bluetooth;
+package com.ginkage.gamepad.core;
 
 /** Helper class to store the battery state and retrieve the binary report. */
 public class BatteryReport {
@@ -27,13 +27,13 @@ public class BatteryReport {
      * @param level Battery level, must be in the [0.0, 1.0] interval
      * @return Byte array that represents the report
      */
-    byte[] setValue(float level) {
+    public byte[] setValue(float level) {
         int val = (int) Math.ceil(level * 255);
         batteryData[0] = (byte) (val & 0xff);
         return batteryData;
     }
 
-    byte[] getReport() {
+    public byte[] getReport() {
         return batteryData;
     }
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.function.Supplier;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Preallocated objects that carry the binder callbacks over to the main thread, in the spirit of
+ * {@code Message.obtain()}. Once the pool has warmed up, passing an event allocates nothing; a new
+ * object is only created when all of them are in flight at once.
+ *
+ * @param <T> Event type, must not hold on to its contents after it is recycled.
+ */
+final class EventPool<T> {
+    private final Object lock = new Object();
+    private final Supplier<T> factory;
+
+    @GuardedBy("lock")
+    private final Object[] free;
+
+    @GuardedBy("lock")
+    private int size;
+
+    @GuardedBy("lock")
+    private long created;
+
+    /**
+     * @param capacity Number of events to preallocate and to keep at most.
+     * @param factory Creates a new, empty event.
+     */
+    EventPool(int capacity, Supplier<T> factory) {
+        checkArgument(capacity > 0, "Bad capacity");
+        this.factory = checkNotNull(factory);
+        free = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            free[i] = factory.get();
+        }
+        size = capacity;
+        created = capacity;
+    }
+
+    /** @return An event from the pool, or a new one if the pool is empty. */
+    @SuppressWarnings("unchecked")
+    T obtain() {
+        synchronized (lock) {
+            if (size > 0) {
+                T event = (T) free[--size];
+                free[size] = null;
+                return event;
+            }
+            created++;
+        }
+        return factory.get();
+    }
+
+    /**
+     * Return the event to the pool. It must not be used by the caller after that.
+     *
+     * @param event Event that was cleared of all references.
+     */
+    void recycle(T event) {
+        synchronized (lock) {
+            if (size < free.length) {
+                free[size++] = event;
+            }
+        }
+    }
+
+    /** @return Number of events ever created, which stops growing once the pool is warm. */
+    long getCreatedCount() {
+        synchronized (lock) {
+            return created;
+        }
+    }
+}
@@ -14,7 +14,9 @@
  * limitations under the License.
  */
 
-package com.ginkage.gamepad.bluetooth;
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.Arrays;
 
@@ -36,50 +38,57 @@ public class GamepadReport {
      *
      * @param s The gamepad state to serialize
      */
-    byte[] setValue(GamepadState s) {
+    public byte[] setValue(GamepadState s) {
         // Pointer (x,y,x,rz) 4 x 16-bit
         // Brake 10-bit + 6-bit
         // Accelerator 10-bit + 6-bit
         // HatSwitch 4-bit + 4-bit
         // Buttons (A, B, X, Y, L1, R1, L2, R2, View, Menu, L3, R3, Up, Down, Left, Right, home) 15-bit + 1-bit
         // Record 1-bit + 7-bit
+        // The state words already follow this layout, so we only need to store them little-endian.
+        encode(s.sticks, gamepadData, 0);
+        encode(s.controls, gamepadData, 8);
+        return gamepadData;
+    }
 
-        gamepadData[0] = (byte) (s.lx & 0xFF);
-        gamepadData[1] = (byte) ((s.lx & 0xFF00) >> 8);
-        gamepadData[2] = (byte) (s.ly & 0xFF);
-        gamepadData[3] = (byte) ((s.ly & 0xFF00) >> 8);
-        gamepadData[4] = (byte) (s.rx & 0xFF);
-        gamepadData[5] = (byte) ((s.rx & 0xFF00) >> 8);
-        gamepadData[6] = (byte) (s.ry & 0xFF);
-        gamepadData[7] = (byte) ((s.ry & 0xFF00) >> 8);
-        gamepadData[8] = (byte) (s.l2 & 0xFF);
-        gamepadData[9] = (byte) ((s.l2 & 0xFF00) >> 8);
-        gamepadData[10] = (byte) (s.r2 & 0xFF);
-        gamepadData[11] = (byte) ((s.r2 & 0xFF00) >> 8);
-        gamepadData[12] = (byte) (s.dpad & 0xFF);
-
-        gamepadData[13] = 0;
-        gamepadData[13] |= (byte) (s.a ? 0x01 : 0);
-        gamepadData[13] |= (byte) (s.b ? 0x02 : 0);
-        gamepadData[13] |= (byte) (s.x ? 0x08 : 0);
-        gamepadData[13] |= (byte) (s.y ? 0x10 : 0);
-        gamepadData[13] |= (byte) (s.l1 ? 0x40 : 0);
-        gamepadData[13] |= (byte) (s.r1 ? 0x80 : 0);
-
-        gamepadData[14] = 0;
-        gamepadData[14] |= (byte) (s.view ? 0x04 : 0);
-        gamepadData[14] |= (byte) (s.menu ? 0x08 : 0);
-        gamepadData[14] |= (byte) (s.home ? 0x10 : 0);
-        gamepadData[14] |= (byte) (s.l3 ? 0x20 : 0);
-        gamepadData[14] |= (byte) (s.r3 ? 0x40 : 0);
+    /**
+     * Convert the binary representation back to the state structure, the reverse of {@link
+     * #setValue}.
+     *
+     * @param data Report without the report ID, at least 16 bytes long.
+     * @return New state with the values of the report.
+     */
+    public static GamepadState decode(byte[] data) {
+        checkArgument(data.length >= 16, "Report too short");
+        GamepadState state = new GamepadState();
+        state.sticks = decode(data, 0);
+        state.controls = decode(data, 8);
+        return state;
+    }
 
-        gamepadData[15] = 0;
-        gamepadData[15] |= (byte) (s.record ? 0x01 : 0);
+    private static void encode(long word, byte[] data, int offset) {
+        data[offset] = (byte) word;
+        data[offset + 1] = (byte) (word >>> 8);
+        data[offset + 2] = (byte) (word >>> 16);
+        data[offset + 3] = (byte) (word >>> 24);
+        data[offset + 4] = (byte) (word >>> 32);
+        data[offset + 5] = (byte) (word >>> 40);
+        data[offset + 6] = (byte) (word >>> 48);
+        data[offset + 7] = (byte) (word >>> 56);
+    }
 
-        return gamepadData;
+    private static long decode(byte[] data, int offset) {
+        return (data[offset] & 0xFFL)
+                | (data[offset + 1] & 0xFFL) << 8
+                | (data[offset + 2] & 0xFFL) << 16
+                | (data[offset + 3] & 0xFFL) << 24
+                | (data[offset + 4] & 0xFFL) << 32
+                | (data[offset + 5] & 0xFFL) << 40
+                | (data[offset + 6] & 0xFFL) << 48
+                | (data[offset + 7] & 0xFFL) << 56;
     }
 
-    byte[] getReport() {
+    public byte[] getReport() {
     return gamepadData;
   }
 
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+/**
+ * The gamepad state structure.
+ *
+ * <p>The whole state is packed into two words that follow the input report layout byte for byte,
+ * so it can be compared, copied and serialized with a couple of word operations.
+ */
+public class GamepadState {
+    // Button masks, bit positions match the buttons field of the report.
+    public static final int BUTTON_A = 1 << 0;
+    public static final int BUTTON_B = 1 << 1;
+    public static final int BUTTON_X = 1 << 3;
+    public static final int BUTTON_Y = 1 << 4;
+    public static final int BUTTON_L1 = 1 << 6;
+    public static final int BUTTON_R1 = 1 << 7;
+    public static final int BUTTON_VIEW = 1 << 10;
+    public static final int BUTTON_MENU = 1 << 11;
+    public static final int BUTTON_HOME = 1 << 12;
+    public static final int BUTTON_L3 = 1 << 13;
+    public static final int BUTTON_R3 = 1 << 14;
+    public static final int BUTTON_RECORD = 1 << 16;
+
+    // Sticks: Up=0, Down=65535, Left=0, Right=65535, Center=32768
+    public static final int STICK_CENTER = 32768;
+
+    private static final int SHIFT_LX = 0;
+    private static final int SHIFT_LY = 16;
+    private static final int SHIFT_RX = 32;
+    private static final int SHIFT_RY = 48;
+
+    private static final int SHIFT_L2 = 0;
+    private static final int SHIFT_R2 = 16;
+    private static final int SHIFT_DPAD = 32;
+    private static final int SHIFT_BUTTONS = 40;
+
+    private static final long MASK_16 = 0xFFFFL;
+    private static final long MASK_8 = 0xFFL;
+    private static final long MASK_BUTTONS = 0xFFFFFFL;
+
+    private static final long CENTERED =
+            ((long) STICK_CENTER << SHIFT_LX)
+                    | ((long) STICK_CENTER << SHIFT_LY)
+                    | ((long) STICK_CENTER << SHIFT_RX)
+                    | ((long) STICK_CENTER << SHIFT_RY);
+
+    // Report bytes 0-7: lx, ly, rx, ry, 16 bits each.
+    long sticks;
+
+    // Report bytes 8-15: l2 and r2 (16 bits each), dpad (8 bits), buttons (24 bits).
+    long controls;
+
+    // System.nanoTime() of the input event this state reflects, not part of the report.
+    private long eventTime;
+
+    public GamepadState() {
+        reset();
+    }
+
+    /** Release all buttons and center the sticks. */
+    public void reset() {
+        sticks = CENTERED;
+        controls = 0;
+        eventTime = 0;
+    }
+
+    /**
+     * Copy the whole state from another instance.
+     *
+     * @param other The state to copy.
+     */
+    public void copyFrom(GamepadState other) {
+        sticks = other.sticks;
+        controls = other.controls;
+        eventTime = other.eventTime;
+    }
+
+    /**
+     * Compare the whole state with another instance.
+     *
+     * @param other The state to compare with.
+     * @return {@code true} if both states produce the same report, regardless of the event time.
+     */
+    public boolean contentEquals(GamepadState other) {
+        return sticks == other.sticks && controls == other.controls;
+    }
+
+    /**
+     * Press or release buttons.
+     *
+     * @param mask One or more {@code BUTTON_*} masks.
+     * @param pressed New state of the buttons.
+     */
+    public void setButton(int mask, boolean pressed) {
+        long bits = (mask & MASK_BUTTONS) << SHIFT_BUTTONS;
+        controls = pressed ? controls | bits : controls & ~bits;
+    }
+
+    /**
+     * @param mask One or more {@code BUTTON_*} masks.
+     * @return {@code true} if any of the buttons is pressed.
+     */
+    public boolean isPressed(int mask) {
+        return (getButtons() & mask) != 0;
+    }
+
+    /** @return Mask of all pressed buttons. */
+    public int getButtons() {
+        return (int) ((controls >>> SHIFT_BUTTONS) & MASK_BUTTONS);
+    }
+
+    // 1=up, 3=right, 5=down, 7=left, 0=release
+    public int getDpad() {
+        return get(controls, SHIFT_DPAD, MASK_8);
+    }
+
+    public void setDpad(int dpad) {
+        controls = set(controls, SHIFT_DPAD, MASK_8, dpad);
+    }
+
+    public int getLx() {
+        return get(sticks, SHIFT_LX, MASK_16);
+    }
+
+    public int getLy() {
+        return get(sticks, SHIFT_LY, MASK_16);
+    }
+
+    public int getRx() {
+        return get(sticks, SHIFT_RX, MASK_16);
+    }
+
+    public int getRy() {
+        return get(sticks, SHIFT_RY, MASK_16);
+    }
+
+    public void setLeftStick(int x, int y) {
+        sticks = set(set(sticks, SHIFT_LX, MASK_16, x), SHIFT_LY, MASK_16, y);
+    }
+
+    public void setRightStick(int x, int y) {
+        sticks = set(set(sticks, SHIFT_RX, MASK_16, x), SHIFT_RY, MASK_16, y);
+    }
+
+    // Triggers: Released=0, Pressed=1023
+    public int getL2() {
+        return get(controls, SHIFT_L2, MASK_16);
+    }
+
+    public int getR2() {
+        return get(controls, SHIFT_R2, MASK_16);
+    }
+
+    public void setL2(int value) {
+        controls = set(controls, SHIFT_L2, MASK_16, value);
+    }
+
+    public void setR2(int value) {
+        controls = set(controls, SHIFT_R2, MASK_16, value);
+    }
+
+    /** @return Time of the input event that produced this state, or {@code 0} if unknown. */
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    /**
+     * Remember when the input that produced this state has happened, so that the time until the
+     * report is sent can be measured.
+     *
+     * @param eventTime {@link System#nanoTime()} of the input event, or {@code 0} if unknown.
+     */
+    public void setEventTime(long eventTime) {
+        this.eventTime = eventTime;
+    }
+
+    // Accessors for the fields of the old state structure, in place of the public fields.
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_A}. */
+    @Deprecated
+    public boolean isA() {
+        return isPressed(BUTTON_A);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_A}. */
+    @Deprecated
+    public void setA(boolean pressed) {
+        setButton(BUTTON_A, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_B}. */
+    @Deprecated
+    public boolean isB() {
+        return isPressed(BUTTON_B);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_B}. */
+    @Deprecated
+    public void setB(boolean pressed) {
+        setButton(BUTTON_B, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_X}. */
+    @Deprecated
+    public boolean isX() {
+        return isPressed(BUTTON_X);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_X}. */
+    @Deprecated
+    public void setX(boolean pressed) {
+        setButton(BUTTON_X, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_Y}. */
+    @Deprecated
+    public boolean isY() {
+        return isPressed(BUTTON_Y);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_Y}. */
+    @Deprecated
+    public void setY(boolean pressed) {
+        setButton(BUTTON_Y, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_L1}. */
+    @Deprecated
+    public boolean isL1() {
+        return isPressed(BUTTON_L1);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_L1}. */
+    @Deprecated
+    public void setL1(boolean pressed) {
+        setButton(BUTTON_L1, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_R1}. */
+    @Deprecated
+    public boolean isR1() {
+        return isPressed(BUTTON_R1);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_R1}. */
+    @Deprecated
+    public void setR1(boolean pressed) {
+        setButton(BUTTON_R1, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_L3}. */
+    @Deprecated
+    public boolean isL3() {
+        return isPressed(BUTTON_L3);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_L3}. */
+    @Deprecated
+    public void setL3(boolean pressed) {
+        setButton(BUTTON_L3, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_R3}. */
+    @Deprecated
+    public boolean isR3() {
+        return isPressed(BUTTON_R3);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_R3}. */
+    @Deprecated
+    public void setR3(boolean pressed) {
+        setButton(BUTTON_R3, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_VIEW}. */
+    @Deprecated
+    public boolean isView() {
+        return isPressed(BUTTON_VIEW);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_VIEW}. */
+    @Deprecated
+    public void setView(boolean pressed) {
+        setButton(BUTTON_VIEW, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_MENU}. */
+    @Deprecated
+    public boolean isMenu() {
+        return isPressed(BUTTON_MENU);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_MENU}. */
+    @Deprecated
+    public void setMenu(boolean pressed) {
+        setButton(BUTTON_MENU, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_HOME}. */
+    @Deprecated
+    public boolean isHome() {
+        return isPressed(BUTTON_HOME);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_HOME}. */
+    @Deprecated
+    public void setHome(boolean pressed) {
+        setButton(BUTTON_HOME, pressed);
+    }
+
+    /** @deprecated Use {@link #isPressed} with {@link #BUTTON_RECORD}. */
+    @Deprecated
+    public boolean isRecord() {
+        return isPressed(BUTTON_RECORD);
+    }
+
+    /** @deprecated Use {@link #setButton} with {@link #BUTTON_RECORD}. */
+    @Deprecated
+    public void setRecord(boolean pressed) {
+        setButton(BUTTON_RECORD, pressed);
+    }
+
+    /** @deprecated Use {@link #setLeftStick}, which sets both axes at once. */
+    @Deprecated
+    public void setLx(int value) {
+        setLeftStick(value, getLy());
+    }
+
+    /** @deprecated Use {@link #setLeftStick}, which sets both axes at once. */
+    @Deprecated
+    public void setLy(int value) {
+        setLeftStick(getLx(), value);
+    }
+
+    /** @deprecated Use {@link #setRightStick}, which sets both axes at once. */
+    @Deprecated
+    public void setRx(int value) {
+        setRightStick(value, getRy());
+    }
+
+    /** @deprecated Use {@link #setRightStick}, which sets both axes at once. */
+    @Deprecated
+    public void setRy(int value) {
+        setRightStick(getRx(), value);
+    }
+
+    private static int get(long word, int shift, long mask) {
+        return (int) ((word >>> shift) & mask);
+    }
+
+    private static long set(long word, int shift, long mask, int value) {
+        return (word & ~(mask << shift)) | ((value & mask) << shift);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Owner of the gamepad state that turns all the changes caused by one input event into a single
+ * report. Changes made between {@link #begin()} and {@link #commit(long)} are sent together, and a
+ * commit that doesn't change the report sends nothing. Must only be used from one thread.
+ */
+public class GamepadStateHolder {
+    private final GamepadState state = new GamepadState();
+
+    // What the sender has last been given, to tell whether a transaction changed anything.
+    private final GamepadState committed = new GamepadState();
+
+    private final GamepadReport.GamepadDataSender sender;
+    private boolean inTransaction;
+    private long commits;
+    private long sentReports;
+
+    /** @param sender Where to send the committed state to. */
+    public GamepadStateHolder(GamepadReport.GamepadDataSender sender) {
+        this.sender = checkNotNull(sender);
+    }
+
+    /**
+     * Start a transaction.
+     *
+     * @return The state to apply the changes to, only valid until {@link #commit(long)}.
+     */
+    public GamepadState begin() {
+        checkState(!inTransaction, "Transaction already started");
+        inTransaction = true;
+        return state;
+    }
+
+    /**
+     * Finish the transaction and send the state, if it has changed since the last commit.
+     *
+     * @param eventTime {@link System#nanoTime()} of the input that caused the changes, or {@code
+     *     0} if unknown.
+     * @return {@code true} if a report was sent.
+     */
+    public boolean commit(long eventTime) {
+        checkState(inTransaction, "No transaction to commit");
+        inTransaction = false;
+        commits++;
+        if (state.contentEquals(committed)) {
+            return false;
+        }
+        committed.copyFrom(state);
+        state.setEventTime(eventTime);
+        sender.sendGamepad(state);
+        sentReports++;
+        return true;
+    }
+
+    /** @return Number of finished transactions. */
+    public long getCommitCount() {
+        return commits;
+    }
+
+    /** @return Number of transactions that resulted in a report. */
+    public long getSentReportCount() {
+        return sentReports;
+    }
+}
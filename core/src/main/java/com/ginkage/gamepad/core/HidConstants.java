@@ -0,0 +1,385 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+/** HID report layout and QoS parameters that don't depend on the Android framework. */
+public class HidConstants {
+    public static final byte ID_GAMEPAD = 1;
+    public static final byte ID_FEEDBACK = 3;
+    public static final byte ID_BATTERY = 4;
+    public static final byte ID_PID_SET_EFFECT = 5;
+    public static final byte ID_PID_EFFECT_OPERATION = 6;
+    public static final byte ID_PID_BLOCK_FREE = 7;
+    public static final byte ID_PID_CREATE_EFFECT = 8;
+    public static final byte ID_PID_BLOCK_LOAD = 9;
+
+    /** Number of effects that the host can keep in the device memory. */
+    public static final int PID_MAX_EFFECTS = 8;
+
+    // Xbox Wireless Controller (Xbox model 1914)
+    public static final byte[] HIDD_REPORT_DESC = {
+            (byte) 0x05, (byte) 0x01,        // Usage Page (Generic Desktop Ctrls)
+            (byte) 0x09, (byte) 0x05,        // Usage (Game Pad)
+            (byte) 0xA1, (byte) 0x01,        // Collection (Application)
+            (byte) 0x85, ID_GAMEPAD,         //   Report ID (1)
+            (byte) 0x09, (byte) 0x01,        //   Usage (Pointer)
+            (byte) 0xA1, (byte) 0x00,        //   Collection (Physical)
+            (byte) 0x09, (byte) 0x30,        //     Usage (X)
+            (byte) 0x09, (byte) 0x31,        //     Usage (Y)
+            (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            (byte) 0x27, (byte) 0xFF, (byte) 0xFF, (byte) 0x00, (byte) 0x00,  //     Logical Maximum (65535)
+            (byte) 0x95, (byte) 0x02,        //     Report Count (2)
+            (byte) 0x75, (byte) 0x10,        //     Report Size (16)
+            (byte) 0x81, (byte) 0x02,        //     Input (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0xC0,                     //   End Collection
+            (byte) 0x09, (byte) 0x01,        //   Usage (Pointer)
+            (byte) 0xA1, (byte) 0x00,        //   Collection (Physical)
+            (byte) 0x09, (byte) 0x32,        //     Usage (Z)
+            (byte) 0x09, (byte) 0x35,        //     Usage (Rz)
+            (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            (byte) 0x27, (byte) 0xFF, (byte) 0xFF, (byte) 0x00, (byte) 0x00,  //     Logical Maximum (65535)
+            (byte) 0x95, (byte) 0x02,        //     Report Count (2)
+            (byte) 0x75, (byte) 0x10,        //     Report Size (16)
+            (byte) 0x81, (byte) 0x02,        //     Input (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0xC0,                     //   End Collection
+            (byte) 0x05, (byte) 0x02,        //   Usage Page (Sim Ctrls)
+            (byte) 0x09, (byte) 0xC5,        //   Usage (Brake)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x26, (byte) 0xFF, (byte) 0x03,  //   Logical Maximum (1023)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x75, (byte) 0x0A,        //   Report Size (10)
+            (byte) 0x81, (byte) 0x02,        //   Input (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x25, (byte) 0x00,        //   Logical Maximum (0)
+            (byte) 0x75, (byte) 0x06,        //   Report Size (6)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x81, (byte) 0x03,        //   Input (Const,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0x05, (byte) 0x02,        //   Usage Page (Sim Ctrls)
+            (byte) 0x09, (byte) 0xC4,        //   Usage (Accelerator)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x26, (byte) 0xFF, (byte) 0x03,  //   Logical Maximum (1023)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x75, (byte) 0x0A,        //   Report Size (10)
+            (byte) 0x81, (byte) 0x02,        //   Input (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x25, (byte) 0x00,        //   Logical Maximum (0)
+            (byte) 0x75, (byte) 0x06,        //   Report Size (6)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x81, (byte) 0x03,        //   Input (Const,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0x05, (byte) 0x01,        //   Usage Page (Generic Desktop Ctrls)
+            (byte) 0x09, (byte) 0x39,        //   Usage (Hat switch)
+            (byte) 0x15, (byte) 0x01,        //   Logical Minimum (1)
+            (byte) 0x25, (byte) 0x08,        //   Logical Maximum (8)
+            (byte) 0x35, (byte) 0x00,        //   Physical Minimum (0)
+            (byte) 0x46, (byte) 0x3B, (byte) 0x01,  //   Physical Maximum (315)
+            (byte) 0x66, (byte) 0x14, (byte) 0x00,  //   Unit (System: English Rotation, Length: Centimeter)
+            (byte) 0x75, (byte) 0x04,        //   Report Size (4)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x81, (byte) 0x42,        //   Input (Data,Var,Abs,No Wrap,Linear,Preferred State,Null State)
+            (byte) 0x75, (byte) 0x04,        //   Report Size (4)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x25, (byte) 0x00,        //   Logical Maximum (0)
+            (byte) 0x35, (byte) 0x00,        //   Physical Minimum (0)
+            (byte) 0x45, (byte) 0x00,        //   Physical Maximum (0)
+            (byte) 0x65, (byte) 0x00,        //   Unit (None)
+            (byte) 0x81, (byte) 0x03,        //   Input (Const,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0x05, (byte) 0x09,        //   Usage Page (Button)
+            (byte) 0x19, (byte) 0x01,        //   Usage Minimum ((byte) 0x01)
+            (byte) 0x29, (byte) 0x0F,        //   Usage Maximum ((byte) 0x0F)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x25, (byte) 0x01,        //   Logical Maximum (1)
+            (byte) 0x75, (byte) 0x01,        //   Report Size (1)
+            (byte) 0x95, (byte) 0x0F,        //   Report Count (15)
+            (byte) 0x81, (byte) 0x02,        //   Input (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x25, (byte) 0x00,        //   Logical Maximum (0)
+            (byte) 0x75, (byte) 0x01,        //   Report Size (1)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x81, (byte) 0x03,        //   Input (Const,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0x05, (byte) 0x0C,        //   Usage Page (Consumer)
+            (byte) 0x0A, (byte) 0xB2, (byte) 0x00,  //   Usage (Record)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x25, (byte) 0x01,        //   Logical Maximum (1)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x75, (byte) 0x01,        //   Report Size (1)
+            (byte) 0x81, (byte) 0x02,        //   Input (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x25, (byte) 0x00,        //   Logical Maximum (0)
+            (byte) 0x75, (byte) 0x07,        //   Report Size (7)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x81, (byte) 0x03,        //   Input (Const,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+
+            // Force feedback and related devices
+            (byte) 0x85, ID_FEEDBACK,        //   Report ID (3)
+            (byte) 0x05, (byte) 0x0F,        //   Usage Page (PID Page)
+            (byte) 0x09, (byte) 0x95,        //   Usage (Device Control Report)
+            (byte) 0xA1, (byte) 0x02,        //   Collection (Logical)
+            (byte) 0x09, (byte) 0x97,        //     Usage ((byte) 0x97)
+            (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            (byte) 0x25, (byte) 0x01,        //     Logical Maximum (1)
+            (byte) 0x75, (byte) 0x04,        //     Report Size (4)
+            (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            (byte) 0x25, (byte) 0x00,        //     Logical Maximum (0)
+            (byte) 0x75, (byte) 0x04,        //     Report Size (4)
+            (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            (byte) 0x91, (byte) 0x03,        //     Output (Const,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            // (byte) 0x09, (byte) 0x70,        //     Usage ((byte) 0x70)
+            // (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            // (byte) 0x25, (byte) 0x64,        //     Logical Maximum (100)
+            // (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            // (byte) 0x95, (byte) 0x04,        //     Report Count (4)
+            // (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            // (byte) 0x09, (byte) 0x50,        //     Usage ((byte) 0x50)
+            // (byte) 0x66, (byte) 0x01, (byte) 0x10,  //     Unit (System: SI Linear, Time: Seconds)
+            // (byte) 0x55, (byte) 0x0E,        //     Unit Exponent (-2)
+            // (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            // (byte) 0x26, (byte) 0xFF, (byte) 0x00,  //     Logical Maximum (255)
+            // (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            // (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            // (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            // (byte) 0x09, (byte) 0xA7,        //     Usage ((byte) 0xA7)
+            // (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            // (byte) 0x26, (byte) 0xFF, (byte) 0x00,  //     Logical Maximum (255)
+            // (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            // (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            // (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            // (byte) 0x65, (byte) 0x00,        //     Unit (None)
+            // (byte) 0x55, (byte) 0x00,        //     Unit Exponent (0)
+            // (byte) 0x09, (byte) 0x7C,        //     Usage ((byte) 0x7C)
+            // (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            // (byte) 0x26, (byte) 0xFF, (byte) 0x00,  //     Logical Maximum (255)
+            // (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            // (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            // (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0xC0,                     //   End Collection
+
+            // Effects stored in the device memory, see PidEffectPool
+            (byte) 0x85, ID_PID_SET_EFFECT,  //   Report ID (5)
+            (byte) 0x05, (byte) 0x0F,        //   Usage Page (PID Page)
+            (byte) 0x09, (byte) 0x21,        //   Usage (Set Effect Report)
+            (byte) 0xA1, (byte) 0x02,        //   Collection (Logical)
+            (byte) 0x09, (byte) 0x22,        //     Usage (Effect Block Index)
+            (byte) 0x15, (byte) 0x01,        //     Logical Minimum (1)
+            (byte) 0x25, (byte) PID_MAX_EFFECTS,  //     Logical Maximum (8)
+            (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0x09, (byte) 0x70,        //     Usage (Magnitude)
+            (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            (byte) 0x25, (byte) 0x64,        //     Logical Maximum (100)
+            (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0x09, (byte) 0x50,        //     Usage (Duration)
+            (byte) 0x09, (byte) 0xA7,        //     Usage (Start Delay)
+            (byte) 0x66, (byte) 0x01, (byte) 0x10,  //     Unit (System: SI Linear, Time: Seconds)
+            (byte) 0x55, (byte) 0x0E,        //     Unit Exponent (-2)
+            (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            (byte) 0x26, (byte) 0xFF, (byte) 0x00,  //     Logical Maximum (255)
+            (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            (byte) 0x95, (byte) 0x02,        //     Report Count (2)
+            (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0x65, (byte) 0x00,        //     Unit (None)
+            (byte) 0x55, (byte) 0x00,        //     Unit Exponent (0)
+            (byte) 0xC0,                     //   End Collection
+
+            (byte) 0x85, ID_PID_EFFECT_OPERATION,  //   Report ID (6)
+            (byte) 0x09, (byte) 0x77,        //   Usage (Effect Operation Report)
+            (byte) 0xA1, (byte) 0x02,        //   Collection (Logical)
+            (byte) 0x09, (byte) 0x22,        //     Usage (Effect Block Index)
+            (byte) 0x15, (byte) 0x01,        //     Logical Minimum (1)
+            (byte) 0x25, (byte) PID_MAX_EFFECTS,  //     Logical Maximum (8)
+            (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0x09, (byte) 0x78,        //     Usage (Effect Operation)
+            (byte) 0xA1, (byte) 0x02,        //     Collection (Logical)
+            (byte) 0x09, (byte) 0x79,        //       Usage (Op Effect Start)
+            (byte) 0x09, (byte) 0x7A,        //       Usage (Op Effect Start Solo)
+            (byte) 0x09, (byte) 0x7B,        //       Usage (Op Effect Stop)
+            (byte) 0x15, (byte) 0x01,        //       Logical Minimum (1)
+            (byte) 0x25, (byte) 0x03,        //       Logical Maximum (3)
+            (byte) 0x75, (byte) 0x08,        //       Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //       Report Count (1)
+            (byte) 0x91, (byte) 0x00,        //       Output (Data,Array,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0xC0,                     //     End Collection
+            (byte) 0x09, (byte) 0x7C,        //     Usage (Loop Count)
+            (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            (byte) 0x26, (byte) 0xFF, (byte) 0x00,  //     Logical Maximum (255)
+            (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0xC0,                     //   End Collection
+
+            (byte) 0x85, ID_PID_BLOCK_FREE,  //   Report ID (7)
+            (byte) 0x09, (byte) 0x90,        //   Usage (Block Free Report)
+            (byte) 0xA1, (byte) 0x02,        //   Collection (Logical)
+            (byte) 0x09, (byte) 0x22,        //     Usage (Effect Block Index)
+            (byte) 0x15, (byte) 0x01,        //     Logical Minimum (1)
+            (byte) 0x25, (byte) PID_MAX_EFFECTS,  //     Logical Maximum (8)
+            (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            (byte) 0x91, (byte) 0x02,        //     Output (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0xC0,                     //   End Collection
+
+            (byte) 0x85, ID_PID_CREATE_EFFECT,  //   Report ID (8)
+            (byte) 0x09, (byte) 0xAB,        //   Usage (Create New Effect Report)
+            (byte) 0xA1, (byte) 0x02,        //   Collection (Logical)
+            (byte) 0x09, (byte) 0x25,        //     Usage (Effect Type)
+            (byte) 0xA1, (byte) 0x02,        //     Collection (Logical)
+            (byte) 0x09, (byte) 0x26,        //       Usage (ET Constant Force)
+            (byte) 0x15, (byte) 0x01,        //       Logical Minimum (1)
+            (byte) 0x25, (byte) 0x01,        //       Logical Maximum (1)
+            (byte) 0x75, (byte) 0x08,        //       Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //       Report Count (1)
+            (byte) 0xB1, (byte) 0x00,        //       Feature (Data,Array,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0xC0,                     //     End Collection
+            (byte) 0xC0,                     //   End Collection
+
+            (byte) 0x85, ID_PID_BLOCK_LOAD,  //   Report ID (9)
+            (byte) 0x09, (byte) 0x89,        //   Usage (Block Load Report)
+            (byte) 0xA1, (byte) 0x02,        //   Collection (Logical)
+            (byte) 0x09, (byte) 0x22,        //     Usage (Effect Block Index)
+            (byte) 0x15, (byte) 0x00,        //     Logical Minimum (0)
+            (byte) 0x25, (byte) PID_MAX_EFFECTS,  //     Logical Maximum (8)
+            (byte) 0x75, (byte) 0x08,        //     Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //     Report Count (1)
+            (byte) 0xB1, (byte) 0x02,        //     Feature (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0x09, (byte) 0x8B,        //     Usage (Block Load Status)
+            (byte) 0xA1, (byte) 0x02,        //     Collection (Logical)
+            (byte) 0x09, (byte) 0x8C,        //       Usage (Block Load Success)
+            (byte) 0x09, (byte) 0x8D,        //       Usage (Block Load Full)
+            (byte) 0x09, (byte) 0x8E,        //       Usage (Block Load Error)
+            (byte) 0x15, (byte) 0x01,        //       Logical Minimum (1)
+            (byte) 0x25, (byte) 0x03,        //       Logical Maximum (3)
+            (byte) 0x75, (byte) 0x08,        //       Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //       Report Count (1)
+            (byte) 0xB1, (byte) 0x00,        //       Feature (Data,Array,Abs,No Wrap,Linear,Preferred State,No Null Position,Non-volatile)
+            (byte) 0xC0,                     //     End Collection
+            (byte) 0xC0,                     //   End Collection
+
+            // Battery level, 1 byte, 0-FF
+            (byte) 0x85, ID_BATTERY,         //   Report ID
+            (byte) 0x05, (byte) 0x06,        //   Usage Page (Generic Dev Ctrls)
+            (byte) 0x09, (byte) 0x20,        //   Usage (Battery Strength)
+            (byte) 0x15, (byte) 0x00,        //   Logical Minimum (0)
+            (byte) 0x26, (byte) 0xFF, (byte) 0x00, //   Logical Maximum (255)
+            (byte) 0x75, (byte) 0x08,        //   Report Size (8)
+            (byte) 0x95, (byte) 0x01,        //   Report Count (1)
+            (byte) 0x81, (byte) 0x02,        //   Input (Data,Var,Abs,No Wrap,Linear,Preferred State,No Null Position)
+            (byte) 0xC0,                     // End Collection
+    };
+
+    /**
+     * HID report descriptor for a gamepad.
+     * typedef struct
+     * {
+     *   uint8_t  reportId;                                 // Report ID = 0x01 (1)
+     *                                                      // Collection: CA:GamePad CP:Pointer
+     *   uint16_t GD_GamePadPointerX;                       // Usage 0x00010030: X, Value = 0 to 65535
+     *   uint16_t GD_GamePadPointerY;                       // Usage 0x00010031: Y, Value = 0 to 65535
+     *   uint16_t GD_GamePadPointerZ;                       // Usage 0x00010032: Z, Value = 0 to 65535
+     *   uint16_t GD_GamePadPointerRz;                      // Usage 0x00010035: Rz, Value = 0 to 65535
+     *                                                      // Collection: CA:GamePad
+     *   uint16_t SIM_GamePadBrake : 10;                    // Usage 0x000200C5: Brake, Value = 0 to 1023
+     *   uint8_t  : 6;                                      // Pad
+     *   uint16_t SIM_GamePadAccelerator : 10;              // Usage 0x000200C4: Accelerator, Value = 0 to 1023
+     *   uint8_t  : 6;                                      // Pad
+     *   uint8_t  GD_GamePadHatSwitch : 4;                  // Usage 0x00010039: Hat switch, Value = 1 to 8, Physical = (Value - 1) x 45 in degrees
+     *   uint8_t  : 4;                                      // Pad
+     *   uint8_t  BTN_GamePadButton1 : 1;                   // Usage 0x00090001: Button 1 Primary/trigger, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton2 : 1;                   // Usage 0x00090002: Button 2 Secondary, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton3 : 1;                   // Usage 0x00090003: Button 3 Tertiary, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton4 : 1;                   // Usage 0x00090004: Button 4, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton5 : 1;                   // Usage 0x00090005: Button 5, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton6 : 1;                   // Usage 0x00090006: Button 6, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton7 : 1;                   // Usage 0x00090007: Button 7, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton8 : 1;                   // Usage 0x00090008: Button 8, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton9 : 1;                   // Usage 0x00090009: Button 9, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton10 : 1;                  // Usage 0x0009000A: Button 10, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton11 : 1;                  // Usage 0x0009000B: Button 11, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton12 : 1;                  // Usage 0x0009000C: Button 12, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton13 : 1;                  // Usage 0x0009000D: Button 13, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton14 : 1;                  // Usage 0x0009000E: Button 14, Value = 0 to 1
+     *   uint8_t  BTN_GamePadButton15 : 1;                  // Usage 0x0009000F: Button 15, Value = 0 to 1
+     *   uint8_t  : 1;                                      // Pad
+     *   uint8_t  CD_GamePadRecord : 1;                     // Usage 0x000C00B2: Record, Value = 0 to 1
+     *   uint8_t  : 7;                                      // Pad
+     * } inputReport01_t;
+     * *****************************************************************************************************
+     * typedef struct
+     * {
+     *   uint8_t  reportId;                                 // Report ID = 0x03 (3)
+     *                                                      // Collection: CA:GamePad CL:DeviceControlReport
+     *   uint8_t  PID_GamePadDeviceControlReportDcEnableActuators : 4; // Usage 0x000F0097: DC Enable Actuators, Value = 0 to 1
+     *   uint8_t  : 4;                                      // Pad
+     *   uint8_t  PID_GamePadDeviceControlReportMagnitude[4]; // Usage 0x000F0070: Magnitude, Value = 0 to 100
+     *   uint8_t  PID_GamePadDeviceControlReportDuration;    // Usage 0x000F0050: Duration, Value = 0 to 255, Physical = Value in 10⁻² s units
+     *   uint8_t  PID_GamePadDeviceControlReportStartDelay;  // Usage 0x000F00A7: Start Delay, Value = 0 to 255, Physical = Value in 10⁻² s units
+     *   uint8_t  PID_GamePadDeviceControlReportLoopCount;   // Usage 0x000F007C: Loop Count, Value = 0 to 255
+     * } outputReport03_t;
+     * *****************************************************************************************************
+     * typedef struct
+     * {
+     *   uint8_t  reportId;                                 // Report ID = 0x05 (5)
+     *                                                      // Collection: CA:GamePad CL:SetEffectReport
+     *   uint8_t  PID_GamePadSetEffectReportEffectBlockIndex; // Usage 0x000F0022: Effect Block Index, Value = 1 to 8
+     *   uint8_t  PID_GamePadSetEffectReportMagnitude;      // Usage 0x000F0070: Magnitude, Value = 0 to 100
+     *   uint8_t  PID_GamePadSetEffectReportDuration;       // Usage 0x000F0050: Duration, Value = 0 to 255, Physical = Value in 10⁻² s units
+     *   uint8_t  PID_GamePadSetEffectReportStartDelay;     // Usage 0x000F00A7: Start Delay, Value = 0 to 255, Physical = Value in 10⁻² s units
+     * } outputReport05_t;
+     *
+     * typedef struct
+     * {
+     *   uint8_t  reportId;                                 // Report ID = 0x06 (6)
+     *                                                      // Collection: CA:GamePad CL:EffectOperationReport
+     *   uint8_t  PID_GamePadEffectOperationReportEffectBlockIndex; // Usage 0x000F0022: Effect Block Index, Value = 1 to 8
+     *   uint8_t  PID_GamePadEffectOperationReportEffectOperation; // Value = 1 to 3: Op Effect Start, Op Effect Start Solo, Op Effect Stop
+     *   uint8_t  PID_GamePadEffectOperationReportLoopCount; // Usage 0x000F007C: Loop Count, Value = 0 to 255
+     * } outputReport06_t;
+     *
+     * typedef struct
+     * {
+     *   uint8_t  reportId;                                 // Report ID = 0x07 (7)
+     *                                                      // Collection: CA:GamePad CL:BlockFreeReport
+     *   uint8_t  PID_GamePadBlockFreeReportEffectBlockIndex; // Usage 0x000F0022: Effect Block Index, Value = 1 to 8
+     * } outputReport07_t;
+     *
+     * typedef struct
+     * {
+     *   uint8_t  reportId;                                 // Report ID = 0x08 (8)
+     *                                                      // Collection: CA:GamePad CL:CreateNewEffectReport
+     *   uint8_t  PID_GamePadCreateNewEffectReportEffectType; // Value = 1 to 1: ET Constant Force
+     * } featureReport08_t;
+     *
+     * typedef struct
+     * {
+     *   uint8_t  reportId;                                 // Report ID = 0x09 (9)
+     *                                                      // Collection: CA:GamePad CL:BlockLoadReport
+     *   uint8_t  PID_GamePadBlockLoadReportEffectBlockIndex; // Usage 0x000F0022: Effect Block Index, Value = 0 to 8
+     *   uint8_t  PID_GamePadBlockLoadReportBlockLoadStatus; // Value = 1 to 3: Block Load Success, Block Load Full, Block Load Error
+     * } featureReport09_t;
+     */
+
+    public static final int QOS_TOKEN_RATE = 800; // 9 bytes * 1000000 us / 11250 us
+    public static final int QOS_TOKEN_BUCKET_SIZE = 9;
+    public static final int QOS_PEAK_BANDWIDTH = 0;
+    public static final int QOS_LATENCY = 11250;
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Counters of everything that goes through the HID Device, cheap enough to be updated from the
+ * input path and the binder threads. Take a {@link #snapshot()} to read them.
+ */
+public final class HidMetrics {
+    /** Events that are counted. */
+    public enum Counter {
+        /** Input reports accepted by the Bluetooth stack. */
+        REPORTS_SENT,
+        /** Gamepad reports skipped because the host already had the same one. */
+        REPORTS_SUPPRESSED,
+        /** Input reports rejected by the Bluetooth stack. */
+        REPORTS_FAILED,
+        /** GET_REPORT requests from the host. */
+        GET_REPORT,
+        /** SET_REPORT requests from the host. */
+        SET_REPORT,
+        /** Output reports received on the interrupt channel. */
+        INTERRUPT_DATA,
+        /** Calls into the profile service made to manage the connections. */
+        BINDER_CALLS,
+        /** Connection state changes reported by the profile service. */
+        CONNECTION_CHANGES,
+        /** Rumble commands replaced by a newer one before they were played. */
+        RUMBLE_DROPPED,
+        /** Rumble commands handed over to the vibrator. */
+        RUMBLE_APPLIED,
+        /** Host callbacks passed on to the main thread, because some listener subscribed to them. */
+        MAIN_THREAD_EVENTS,
+        /** SDP record registrations, each of them makes the host reconnect. */
+        APP_REGISTRATIONS
+    }
+
+    private static final Counter[] COUNTERS = Counter.values();
+
+    private final LongAdder[] counters = new LongAdder[COUNTERS.length];
+    private final ReportLatency latency = new ReportLatency();
+    @Nullable private volatile String host;
+
+    public HidMetrics() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /** @return Latency histograms of the gamepad reports. */
+    public ReportLatency getLatency() {
+        return latency;
+    }
+
+    /**
+     * @param counter Counter to read.
+     * @return Current value of the counter.
+     */
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Capture the current values of all counters, together with the host they relate to.
+     *
+     * @return Point in time copy of the metrics.
+     */
+    public Snapshot snapshot() {
+        long[] values = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            values[i] = counters[i].sum();
+        }
+        return new Snapshot(System.nanoTime(), host, values);
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    /**
+     * Count the outcome of a single report.
+     *
+     * @param sent Value returned by the transport.
+     */
+    public void countReport(boolean sent) {
+        increment(sent ? Counter.REPORTS_SENT : Counter.REPORTS_FAILED);
+    }
+
+    /** @param host Address of the connected HID Host, or {@code null} if there is none. */
+    public void setHost(@Nullable String host) {
+        this.host = host;
+    }
+
+    /** Values of all counters at some point in time. */
+    @Immutable
+    public static final class Snapshot {
+        private final long timeNanos;
+        @Nullable private final String host;
+        private final long[] values;
+
+        private Snapshot(long timeNanos, @Nullable String host, long[] values) {
+            this.timeNanos = timeNanos;
+            this.host = host;
+            this.values = values;
+        }
+
+        /** @return {@link System#nanoTime()} of the moment the snapshot was taken. */
+        public long getTimeNanos() {
+            return timeNanos;
+        }
+
+        /** @return Address of the HID Host that was connected, or {@code null} if none was. */
+        @Nullable
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @param counter Counter to read.
+         * @return Value of the counter when the snapshot was taken.
+         */
+        public long get(Counter counter) {
+            return values[counter.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("host=").append(host);
+            for (Counter counter : COUNTERS) {
+                builder.append(' ').append(counter).append('=').append(get(counter));
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.Nullable;
+
+/**
+ * Passes the host callbacks from the binder threads on to the main thread, but only the ones that
+ * somebody subscribed to. The arguments travel in pooled events, so a warm dispatcher allocates
+ * nothing.
+ *
+ * @param <D> Type of the device that the callbacks come from.
+ */
+public final class HostEventDispatcher<D> {
+    /** Interest of the callbacks that are delivered whatever the subscriptions are. */
+    public static final int ALWAYS = 0;
+    /** Subscription to the GET_REPORT callbacks. */
+    public static final int EVENT_GET_REPORT = 1;
+    /** Subscription to the SET_REPORT callbacks. */
+    public static final int EVENT_SET_REPORT = 1 << 1;
+    /** Subscription to the interrupt channel data that isn't force feedback. */
+    public static final int EVENT_INTERRUPT_DATA = 1 << 2;
+
+    // Enough for a burst of host requests, more are allocated only while the main thread is busy.
+    private static final int EVENT_POOL_SIZE = 16;
+
+    /** Arguments of a binder callback on their way to the main thread. */
+    public static final class Event<D> {
+        @Nullable D device;
+        @Nullable byte[] data;
+        byte type;
+        byte id;
+        int value;
+
+        /** @return Device the callback came from. */
+        @Nullable
+        public D getDevice() {
+            return device;
+        }
+
+        /** @return Report data, if the callback had any. */
+        @Nullable
+        public byte[] getData() {
+            return data;
+        }
+
+        /** @return Report type. */
+        public byte getType() {
+            return type;
+        }
+
+        /** @return Report ID. */
+        public byte getId() {
+            return id;
+        }
+
+        /** @return Buffer size, state, or whatever the integer argument of the callback was. */
+        public int getValue() {
+            return value;
+        }
+    }
+
+    /** Hands an event over to the main thread, e.g. with a {@code Message}. */
+    public interface Poster<D> {
+        /**
+         * @param what Callback the event is for.
+         * @param event Event to pass to {@link #recycle} once it was handled.
+         */
+        void post(int what, Event<D> event);
+    }
+
+    private final EventPool<Event<D>> eventPool = new EventPool<>(EVENT_POOL_SIZE, Event::new);
+    private final HidMetrics metrics;
+    private final Poster<D> poster;
+    private volatile int interests;
+
+    /**
+     * @param metrics Where to count the events passed to the main thread.
+     * @param poster Hands the events over to the main thread.
+     */
+    public HostEventDispatcher(HidMetrics metrics, Poster<D> poster) {
+        this.metrics = checkNotNull(metrics);
+        this.poster = checkNotNull(poster);
+    }
+
+    /**
+     * @param interests Combination of {@link #EVENT_GET_REPORT}, {@link #EVENT_SET_REPORT} and
+     *     {@link #EVENT_INTERRUPT_DATA}.
+     */
+    public void setInterests(int interests) {
+        this.interests = interests;
+    }
+
+    /**
+     * Pass a callback on to the main thread, if anybody subscribed to it.
+     *
+     * @param interest Subscription the callback belongs to, or {@link #ALWAYS}.
+     * @param what Callback the event is for.
+     * @return {@code true} if the event was posted.
+     */
+    public boolean dispatch(
+            int interest,
+            int what,
+            @Nullable D device,
+            byte type,
+            byte id,
+            int value,
+            @Nullable byte[] data) {
+        if (interest != ALWAYS && (interests & interest) == 0) {
+            return false;
+        }
+        metrics.increment(HidMetrics.Counter.MAIN_THREAD_EVENTS);
+        Event<D> event = eventPool.obtain();
+        event.device = device;
+        event.type = type;
+        event.id = id;
+        event.value = value;
+        event.data = data;
+        poster.post(what, event);
+        return true;
+    }
+
+    /** @param event Event that was handled, it must not be used after that. */
+    public void recycle(Event<D> event) {
+        event.device = null;
+        event.data = null;
+        eventPool.recycle(event);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ginkage.gamepad.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Sending side of a single input report. The producer thread publishes new reports without
+ * blocking, and the sender thread flushes the latest one to the transport, skipping duplicates and
+ * keeping within the QoS token bucket.
+ */
+public class PacedReportSender {
+    // Timestamps stored with every report in the mailbox.
+    private static final int EVENT_TIME = 0;
+    private static final int PUBLISH_TIME = 1;
+
+    private final byte id;
+    private final ReportPacer pacer;
+    private final HidMetrics metrics;
+    private final ReportLatency latency;
+    private final LongSupplier clock;
+
+    // Hands the most recent report over to the sender thread without blocking.
+    private final TripleBuffer mailbox;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Copy of the last report that was accepted by the transport, used to skip duplicates.
+    private final byte[] lastSent;
+    private boolean hasLastSent;
+    @Nullable private String lastHost;
+
+    /**
+     * @param id Report ID.
+     * @param size Report size in bytes, without the report ID.
+     * @param pacer Token bucket to pace the reports with.
+     * @param metrics Where to count the reports and record their latency.
+     * @param clock Source of {@link System#nanoTime()} compatible timestamps.
+     */
+    public PacedReportSender(
+            byte id, int size, ReportPacer pacer, HidMetrics metrics, LongSupplier clock) {
+        this.id = id;
+        this.pacer = pacer;
+        this.metrics = metrics;
+        latency = metrics.getLatency();
+        this.clock = clock;
+        mailbox = new TripleBuffer(size, 2);
+        lastSent = new byte[size];
+    }
+
+    /**
+     * Publish a new report. Must always be called from the same thread.
+     *
+     * @param report Report data, at least as long as the report size.
+     * @param eventTime Time of the input event that produced the report, or {@code 0} if unknown.
+     * @return {@code true} if the caller should schedule a {@link #flush}, {@code false} if one is
+     *     already scheduled and will pick this report up.
+     */
+    public boolean publish(byte[] report, long eventTime) {
+        byte[] back = mailbox.getBackBuffer();
+        System.arraycopy(report, 0, back, 0, back.length);
+        long[] timestamps = mailbox.getBackTimestamps();
+        timestamps[EVENT_TIME] = eventTime;
+        timestamps[PUBLISH_TIME] = clock.getAsLong();
+        mailbox.publish();
+        return !flushScheduled.getAndSet(true);
+    }
+
+    /**
+     * Forget a flush that was scheduled but will never run, e.g. because the sender thread went
+     * away, so that the next {@link #publish} schedules one again. Must be called from the thread
+     * that flushes, after the last flush.
+     */
+    public void cancelFlush() {
+        flushScheduled.set(false);
+    }
+
+    /**
+     * Send the most recent report, unless the host already has it. Must always be called from the
+     * same thread.
+     *
+     * @param transport Where to send the report to. A transport to a different host address means
+     *     a new host, which has not seen any of our reports yet.
+     * @return {@code 0} if there is nothing left to send, otherwise the number of nanoseconds after
+     *     which the caller must flush again, because the token bucket is empty.
+     */
+    public long flush(ReportTransport transport) {
+        // Clear the flag before taking the report, so that anything published after this point
+        // schedules another flush.
+        flushScheduled.set(false);
+        mailbox.update();
+
+        // The transport is replaced on every proxy or device change, only a new host counts.
+        String host = transport.getHostAddress();
+        if (!Objects.equals(host, lastHost)) {
+            lastHost = host;
+            hasLastSent = false;
+            pacer.reset();
+        }
+
+        // The front buffer may still hold a report that was held back by the pacer.
+        byte[] report = mailbox.getFrontBuffer();
+        if (hasLastSent && Arrays.equals(report, lastSent)) {
+            // The host already has this exact report, don't waste the airtime.
+            metrics.increment(HidMetrics.Counter.REPORTS_SUPPRESSED);
+            return 0;
+        }
+
+        long now = clock.getAsLong();
+        long delay = pacer.tryAcquire(now);
+        if (delay > 0) {
+            // Out of tokens: wait for the next slot instead of queueing reports in the stack.
+            // Anything published in the meantime will be picked up by that flush.
+            flushScheduled.set(true);
+            return delay;
+        }
+
+        boolean sent = transport.sendReport(id, report);
+        long done = clock.getAsLong();
+        metrics.countReport(sent);
+        if (sent) {
+            System.arraycopy(report, 0, lastSent, 0, report.length);
+            hasLastSent = true;
+        }
+
+        long[] timestamps = mailbox.getFrontTimestamps();
+        latency.record(ReportLatency.Stage.QUEUE, now - timestamps[PUBLISH_TIME]);
+        latency.record(ReportLatency.Stage.BINDER, done - now);
+        if (timestamps[EVENT_TIME] != 0) {
+            latency.record(ReportLatency.Stage.TOTAL, done - timestamps[EVENT_TIME]);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Force feedback effects that the host has downloaded to the device, so that playing one back only
+ * takes a short Effect Operation report. Every effect is kept as a packed {@link RumbleMailbox}
+ * command in a preallocated array, indexed by the Effect Block Index.
+ */
+public class PidEffectPool {
+    /** Block Load Status values, see {@code featureReport09_t}. */
+    static final int LOAD_SUCCESS = 1;
+    static final int LOAD_FULL = 2;
+    static final int LOAD_ERROR = 3;
+
+    /** Effect Type values, see {@code featureReport08_t}. */
+    static final int TYPE_CONSTANT_FORCE = 1;
+
+    /** Effect Operation values, see {@code outputReport06_t}. */
+    static final int OP_START = 1;
+    static final int OP_START_SOLO = 2;
+    static final int OP_STOP = 3;
+
+    private static final int NO_EFFECT = 0;
+    private static final int SET_EFFECT_SIZE = 4;
+    private static final int EFFECT_OPERATION_SIZE = 3;
+    private static final int BLOCK_LOAD_SIZE = 2;
+
+    private final Object lock = new Object();
+
+    // Slot 0 is never used, so that the Effect Block Index needs no adjustment.
+    @GuardedBy("lock")
+    private final long[] effects;
+
+    @GuardedBy("lock")
+    private int playing = NO_EFFECT;
+
+    @GuardedBy("lock")
+    private int lastIndex = NO_EFFECT;
+
+    @GuardedBy("lock")
+    private int lastStatus = LOAD_ERROR;
+
+    /** @param capacity Maximum number of effects the host can create. */
+    public PidEffectPool(int capacity) {
+        checkArgument(capacity > 0 && capacity < 256, "Bad capacity");
+        effects = new long[capacity + 1];
+    }
+
+    /**
+     * Handle the Create New Effect request. Its outcome is read with {@link #getBlockLoad()}.
+     *
+     * @param data {@code featureReport08_t} data without the report ID.
+     */
+    public void create(@Nullable byte[] data) {
+        synchronized (lock) {
+            lastIndex = NO_EFFECT;
+            if (data == null || data.length < 1 || data[0] != TYPE_CONSTANT_FORCE) {
+                lastStatus = LOAD_ERROR;
+                return;
+            }
+            for (int index = 1; index < effects.length; index++) {
+                if (effects[index] == RumbleMailbox.EMPTY) {
+                    // A new effect is silent until the host sets its parameters.
+                    effects[index] = RumbleMailbox.command(RumbleMailbox.KIND_WAVEFORM, 0, 0, 0, 0);
+                    lastIndex = index;
+                    lastStatus = LOAD_SUCCESS;
+                    return;
+                }
+            }
+            lastStatus = LOAD_FULL;
+        }
+    }
+
+    /**
+     * Get the reply to the Block Load request that follows Create New Effect. Only used once per
+     * effect, so allocating the reply is fine.
+     *
+     * @return {@code featureReport09_t} data without the report ID.
+     */
+    public byte[] getBlockLoad() {
+        byte[] report = new byte[BLOCK_LOAD_SIZE];
+        synchronized (lock) {
+            report[0] = (byte) lastIndex;
+            report[1] = (byte) lastStatus;
+        }
+        return report;
+    }
+
+    /**
+     * Handle the Set Effect report.
+     *
+     * @param data {@code outputReport05_t} data without the report ID.
+     * @return {@code false} if the report is malformed or the effect doesn't exist.
+     */
+    public boolean set(@Nullable byte[] data) {
+        if (data == null || data.length < SET_EFFECT_SIZE) {
+            return false;
+        }
+        int index = data[0] & 0xFF;
+        long effect =
+                RumbleMailbox.command(
+                        RumbleMailbox.KIND_WAVEFORM,
+                        RumbleMailbox.toAmplitude(data[1] & 0xFF),
+                        RumbleMailbox.toMillis(data[2] & 0xFF),
+                        RumbleMailbox.toMillis(data[3] & 0xFF),
+                        0);
+        synchronized (lock) {
+            if (!isAllocated(index)) {
+                return false;
+            }
+            effects[index] = effect;
+            return true;
+        }
+    }
+
+    /**
+     * Handle the Effect Operation report.
+     *
+     * @param data {@code outputReport06_t} data without the report ID.
+     * @return Command to post to the {@link RumbleMailbox}, or {@link RumbleMailbox#EMPTY} if
+     *     nothing has to be played or stopped.
+     */
+    public long operate(@Nullable byte[] data) {
+        if (data == null || data.length < EFFECT_OPERATION_SIZE) {
+            return RumbleMailbox.EMPTY;
+        }
+        int index = data[0] & 0xFF;
+        int operation = data[1] & 0xFF;
+        // PID counts every playback, the vibrator only counts the repetitions.
+        int loopCount = Math.max((data[2] & 0xFF) - 1, 0);
+        synchronized (lock) {
+            if (!isAllocated(index)) {
+                return RumbleMailbox.EMPTY;
+            }
+            switch (operation) {
+                case OP_START:
+                case OP_START_SOLO:
+                    // There is a single vibrator, so any start replaces the current effect.
+                    playing = index;
+                    return effects[index] | loopCount;
+                case OP_STOP:
+                    return stopLocked(index);
+                default:
+                    return RumbleMailbox.EMPTY;
+            }
+        }
+    }
+
+    /**
+     * Handle the Block Free report.
+     *
+     * @param data {@code outputReport07_t} data without the report ID.
+     * @return Command to stop the effect if it was playing, or {@link RumbleMailbox#EMPTY}.
+     */
+    public long free(@Nullable byte[] data) {
+        if (data == null || data.length < 1) {
+            return RumbleMailbox.EMPTY;
+        }
+        int index = data[0] & 0xFF;
+        synchronized (lock) {
+            if (!isAllocated(index)) {
+                return RumbleMailbox.EMPTY;
+            }
+            effects[index] = RumbleMailbox.EMPTY;
+            return stopLocked(index);
+        }
+    }
+
+    /** Forget all effects, e.g. when the host disconnects. */
+    public void reset() {
+        synchronized (lock) {
+            for (int index = 0; index < effects.length; index++) {
+                effects[index] = RumbleMailbox.EMPTY;
+            }
+            playing = NO_EFFECT;
+            lastIndex = NO_EFFECT;
+            lastStatus = LOAD_ERROR;
+        }
+    }
+
+    @GuardedBy("lock")
+    private boolean isAllocated(int index) {
+        return index > NO_EFFECT && index < effects.length && effects[index] != RumbleMailbox.EMPTY;
+    }
+
+    @GuardedBy("lock")
+    private long stopLocked(int index) {
+        if (playing != index) {
+            return RumbleMailbox.EMPTY;
+        }
+        playing = NO_EFFECT;
+        return RumbleMailbox.command(RumbleMailbox.KIND_STOP, 0, 0, 0, 0);
+    }
+}
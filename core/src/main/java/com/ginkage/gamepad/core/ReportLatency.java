@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+/**
+ * Latency histograms for every stage that a gamepad report goes through, from the input event to
+ * the report being handed over to the Bluetooth stack.
+ */
+public final class ReportLatency {
+    /** Pipeline stages, in the order the report passes them. */
+    public enum Stage {
+        /** From the input event to the UI thread starting to process it. */
+        DISPATCH,
+        /** Encoding the report and handing it over to the sender thread. */
+        ENCODE,
+        /** Waiting for the sender thread, including the wait for the QoS token bucket. */
+        QUEUE,
+        /** The binder call that sends the report. */
+        BINDER,
+        /** From the input event to the binder call returning. */
+        TOTAL
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+
+    public ReportLatency() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @param stage Pipeline stage.
+     * @return Histogram of the time that the reports have spent in the stage.
+     */
+    public LatencyHistogram get(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /** Forget all measurements, e.g. when a new host connects. */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : STAGES) {
+            builder.append(stage).append(": ").append(get(stage)).append('\n');
+        }
+        return builder.toString();
+    }
+}
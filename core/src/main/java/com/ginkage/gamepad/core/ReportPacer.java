@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Token bucket that keeps the outgoing report rate within the QoS we negotiated with the stack.
+ *
+ * <p>Implemented as a virtual scheduling (GCRA) bucket, so it only needs a single timestamp and
+ * never allocates.
+ */
+public class ReportPacer {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // Time it takes for the bucket to accrue enough tokens for a single report.
+    private final long emissionInterval;
+    // How far ahead of the schedule we may send while the bucket is not empty.
+    private final long burstTolerance;
+
+    // Theoretical time when the next report is allowed if the bucket was drained.
+    private long theoreticalArrival = Long.MIN_VALUE;
+
+    /**
+     * @param tokenRate Token rate in bytes per second.
+     * @param bucketSize Token bucket size in bytes.
+     * @param reportCost Number of tokens spent per report, must not exceed the bucket size.
+     */
+    public ReportPacer(int tokenRate, int bucketSize, int reportCost) {
+        checkArgument(tokenRate > 0, "Token rate must be positive");
+        checkArgument(reportCost > 0 && reportCost <= bucketSize, "Bad report cost");
+        emissionInterval = reportCost * NANOS_PER_SECOND / tokenRate;
+        burstTolerance = (bucketSize - reportCost) * NANOS_PER_SECOND / tokenRate;
+    }
+
+    /** @return Minimal interval between two reports when the bucket is drained, in nanoseconds. */
+    long getEmissionInterval() {
+        return emissionInterval;
+    }
+
+    /**
+     * Try to take the tokens for a single report.
+     *
+     * @param now Current {@link System#nanoTime()} value.
+     * @return {@code 0} if the report may be sent right away, otherwise the number of nanoseconds
+     *     to wait before trying again.
+     */
+    long tryAcquire(long now) {
+        if (theoreticalArrival == Long.MIN_VALUE) {
+            theoreticalArrival = now;
+        }
+        long allowedAt = theoreticalArrival - burstTolerance;
+        if (now < allowedAt) {
+            return allowedAt - now;
+        }
+        theoreticalArrival = Math.max(theoreticalArrival, now) + emissionInterval;
+        return 0;
+    }
+
+    /** Refill the bucket, e.g. when we start talking to a new host. */
+    void reset() {
+        theoreticalArrival = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Latest value of every input report, kept for the GET_REPORT requests. Reports are written by a
+ * single producer thread and read by any number of binder threads; each one is triple-buffered, so
+ * a reader never sees a report that is only half updated. Every reading thread gets its own reply
+ * buffers, so reading doesn't allocate once a thread has read a report at a given size.
+ */
+public class ReportStore {
+    private static final int MAX_REPORTS = 256;
+
+    private static final class Entry {
+        final int size;
+        // Only one reader at a time may take the latest report out of the buffer.
+        @GuardedBy("this")
+        final TripleBuffer buffer;
+        // Replies of the calling thread for every buffer size, indexed by length.
+        final ThreadLocal<byte[][]> replies;
+
+        Entry(int size) {
+            this.size = size;
+            buffer = new TripleBuffer(size);
+            replies = ThreadLocal.withInitial(() -> new byte[size + 1][]);
+        }
+    }
+
+    private final Entry[] entries = new Entry[MAX_REPORTS];
+
+    /**
+     * Reserve the storage for a report.
+     *
+     * @param id Report ID.
+     * @param size Report size in bytes, without the report ID.
+     */
+    public void register(byte id, int size) {
+        checkArgument(size > 0, "Bad report size");
+        checkState(entries[id & 0xFF] == null, "Report is already registered");
+        entries[id & 0xFF] = new Entry(size);
+    }
+
+    /**
+     * Atomically replace the stored report. Must always be called from the same thread.
+     *
+     * @param id Report ID, must be registered.
+     * @param report New report data, at least as long as the registered size.
+     */
+    public void publish(byte id, byte[] report) {
+        TripleBuffer buffer = entries[id & 0xFF].buffer;
+        byte[] back = buffer.getBackBuffer();
+        System.arraycopy(report, 0, back, 0, back.length);
+        buffer.publish();
+    }
+
+    /**
+     * Get the most recently published report. Calls may come from any number of threads at once,
+     * the result belongs to the calling thread and is only valid until its next call.
+     *
+     * @param id Report ID.
+     * @param bufferSize Maximum reply size requested by the host including the report ID byte, or
+     *     {@code 0} if there is no limit.
+     * @return Report data, truncated to fit the buffer, or {@code null} if the ID is unknown.
+     */
+    @Nullable
+    public byte[] read(byte id, int bufferSize) {
+        Entry entry = entries[id & 0xFF];
+        if (entry == null) {
+            return null;
+        }
+
+        // The stack prepends the report ID to our data.
+        int length =
+                bufferSize > 0 ? Math.min(Math.max(bufferSize - 1, 0), entry.size) : entry.size;
+        byte[][] replies = entry.replies.get();
+        byte[] reply = replies[length];
+        if (reply == null) {
+            reply = new byte[length];
+            replies[length] = reply;
+        }
+
+        synchronized (entry) {
+            entry.buffer.update();
+            System.arraycopy(entry.buffer.getFrontBuffer(), 0, reply, 0, length);
+        }
+        return reply;
+    }
+}
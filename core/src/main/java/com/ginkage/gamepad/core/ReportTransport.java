@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ginkage.gamepad.core;
+
+import javax.annotation.Nullable;
+
+/** Channel to a single HID Host that the reports are sent through. */
+public interface ReportTransport {
+    /**
+     * Send an input report over the interrupt channel.
+     *
+     * @param id Report ID.
+     * @param data Report data, without the report ID.
+     * @return {@code true} if the report was accepted for sending.
+     */
+    boolean sendReport(byte id, byte[] data);
+
+    /**
+     * Answer a GET_REPORT request over the control channel.
+     *
+     * @param type Report type that was requested.
+     * @param id Report ID.
+     * @param data Report data, without the report ID.
+     * @return {@code true} if the reply was accepted for sending.
+     */
+    boolean replyReport(byte type, byte id, byte[] data);
+
+    /**
+     * @return Address of the HID Host, or {@code null} if there is none. Transports with the same
+     *     address reach the same host, which already has the reports sent through any of them.
+     */
+    @Nullable
+    String getHostAddress();
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Latest-wins slot for the rumble commands sent by the host, either directly in the {@code
+ * outputReport03_t} reports or by starting an effect stored in the {@link PidEffectPool}. The
+ * report is decoded right where it arrives into a single packed {@code long}, and a command that is
+ * replaced before the consumer gets to it is dropped instead of being played late.
+ */
+public final class RumbleMailbox {
+    /** Receives the notification that the mailbox is no longer empty. */
+    public interface Listener {
+        /**
+         * Called on the thread that posted the command when the mailbox was empty before, and
+         * when the listener is attached to a mailbox that already holds a command. The listener is
+         * expected to schedule a {@link #take()} on its own thread, a wakeup that finds nothing to
+         * take is harmless.
+         */
+        void onRumbleAvailable(RumbleMailbox mailbox);
+    }
+
+    /** Value returned by {@link #take()} when there's no pending command. */
+    public static final long EMPTY = 0;
+
+    /** Stop the current vibration. */
+    public static final int KIND_STOP = 1;
+    /** Short tick of a default strength. */
+    public static final int KIND_ONE_SHOT = 2;
+    /** Rumble described by the amplitude, duration, start delay and loop count. */
+    public static final int KIND_WAVEFORM = 3;
+
+    private static final int MAX_AMPLITUDE = 255;
+    private static final int MAX_MAGNITUDE = 100;
+    private static final int TIME_UNIT_MS = 10;
+    private static final int WAVEFORM_REPORT_SIZE = 8;
+
+    private final AtomicLong command = new AtomicLong(EMPTY);
+    private final HidMetrics metrics;
+
+    /** @param metrics Where to count the dropped and applied commands. */
+    public RumbleMailbox(HidMetrics metrics) {
+        this.metrics = checkNotNull(metrics);
+    }
+
+    /**
+     * Decode an {@code outputReport03_t} and make it the pending command, replacing the previous
+     * one if it wasn't taken yet.
+     *
+     * @param data Report data without the report ID.
+     * @return {@code true} if the mailbox was empty, and the consumer has to be woken up.
+     */
+    public boolean post(@Nullable byte[] data) {
+        return offer(decode(data));
+    }
+
+    /**
+     * Make the command pending, replacing the previous one if it wasn't taken yet.
+     *
+     * @param value Command built with {@link #command}, {@link #EMPTY} is ignored.
+     * @return {@code true} if the mailbox was empty, and the consumer has to be woken up.
+     */
+    public boolean offer(long value) {
+        if (value == EMPTY) {
+            return false;
+        }
+        if (command.getAndSet(value) != EMPTY) {
+            metrics.increment(HidMetrics.Counter.RUMBLE_DROPPED);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Take the newest command out of the mailbox.
+     *
+     * @return Packed command, or {@link #EMPTY} if there was none.
+     */
+    public long take() {
+        long value = command.getAndSet(EMPTY);
+        if (value != EMPTY) {
+            metrics.increment(HidMetrics.Counter.RUMBLE_APPLIED);
+        }
+        return value;
+    }
+
+    /** Drop the pending command, if any, e.g. when there is nobody left to play it. */
+    public void clear() {
+        if (command.getAndSet(EMPTY) != EMPTY) {
+            metrics.increment(HidMetrics.Counter.RUMBLE_DROPPED);
+        }
+    }
+
+    /** @return {@code true} if there's no pending command. */
+    public boolean isEmpty() {
+        return command.get() == EMPTY;
+    }
+
+    /**
+     * Pack the command parameters into a single value.
+     *
+     * @param kind One of {@link #KIND_STOP}, {@link #KIND_ONE_SHOT} or {@link #KIND_WAVEFORM}.
+     * @param amplitude Rumble strength in [0, 255].
+     * @param duration Length of a single pulse in milliseconds, up to 65535.
+     * @param startDelay Pause before every pulse in milliseconds, up to 65535.
+     * @param loopCount Number of extra repetitions, up to 65535.
+     * @return Packed command.
+     */
+    public static long command(
+            int kind, int amplitude, int duration, int startDelay, int loopCount) {
+        return ((long) kind << 56)
+                | ((long) amplitude << 48)
+                | ((long) duration << 32)
+                | ((long) startDelay << 16)
+                | loopCount;
+    }
+
+    /** @return One of {@link #KIND_STOP}, {@link #KIND_ONE_SHOT} or {@link #KIND_WAVEFORM}. */
+    public static int getKind(long command) {
+        return (int) (command >>> 56);
+    }
+
+    /** @return Rumble strength in [0, 255]. */
+    public static int getAmplitude(long command) {
+        return (int) (command >>> 48) & 0xFF;
+    }
+
+    /** @return Length of a single pulse in milliseconds. */
+    public static int getDuration(long command) {
+        return (int) (command >>> 32) & 0xFFFF;
+    }
+
+    /** @return Pause before every pulse in milliseconds. */
+    public static int getStartDelay(long command) {
+        return (int) (command >>> 16) & 0xFFFF;
+    }
+
+    /** @return Number of extra repetitions. */
+    public static int getLoopCount(long command) {
+        return (int) command & 0xFFFF;
+    }
+
+    /**
+     * @param magnitude PID magnitude in [0, 100], larger values are clamped.
+     * @return Rumble strength in [0, 255].
+     */
+    static int toAmplitude(int magnitude) {
+        return Math.min(MAX_AMPLITUDE * magnitude / MAX_MAGNITUDE, MAX_AMPLITUDE);
+    }
+
+    /**
+     * @param time PID time value in 10⁻² s units.
+     * @return Time in milliseconds.
+     */
+    static int toMillis(int time) {
+        return time * TIME_UNIT_MS;
+    }
+
+    private static long decode(@Nullable byte[] data) {
+        if (data == null || data.length == 0) {
+            return EMPTY;
+        }
+        if (data[0] == 0) {
+            return command(KIND_STOP, 0, 0, 0, 0);
+        }
+        if (data.length < WAVEFORM_REPORT_SIZE) {
+            return command(KIND_ONE_SHOT, 0, 0, 0, 0);
+        }
+        int magnitude =
+                ((data[1] & 0xFF) + (data[2] & 0xFF) + (data[3] & 0xFF) + (data[4] & 0xFF)) / 4;
+        return command(
+                KIND_WAVEFORM,
+                toAmplitude(magnitude),
+                toMillis(data[5] & 0xFF),
+                toMillis(data[6] & 0xFF),
+                data[7] & 0xFF);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Counts the users of a session, e.g. the SDP record and the host connection, and keeps it for a
+ * grace period after the last user has left. A rotation or a switch to another screen brings a new
+ * user right away, so the session survives it without being set up again. Must only be used from
+ * one thread, the one the scheduler runs the teardown on.
+ */
+public final class SessionRefCount {
+    /** Runs the delayed teardown, e.g. with a {@code Handler}. */
+    public interface Scheduler {
+        /**
+         * @param task Task to run.
+         * @param delayMillis Delay in milliseconds.
+         */
+        void postDelayed(Runnable task, long delayMillis);
+
+        /** @param task Task that must not run any more. */
+        void removeCallbacks(Runnable task);
+    }
+
+    private final Scheduler scheduler;
+    private final Runnable teardown;
+    private final Runnable expire = this::expire;
+    private long gracePeriodMs;
+    private int users;
+    private boolean active;
+
+    /**
+     * @param scheduler Runs the teardown after the grace period.
+     * @param teardown Releases the session.
+     * @param gracePeriodMs Time to keep the session without users, in milliseconds.
+     */
+    public SessionRefCount(Scheduler scheduler, Runnable teardown, long gracePeriodMs) {
+        this.scheduler = checkNotNull(scheduler);
+        this.teardown = checkNotNull(teardown);
+        setGracePeriod(gracePeriodMs);
+    }
+
+    /**
+     * @param millis Time to keep the session without users, {@code 0} to tear it down as soon as
+     *     the last user leaves.
+     */
+    public void setGracePeriod(long millis) {
+        checkArgument(millis >= 0, "Bad grace period");
+        gracePeriodMs = millis;
+    }
+
+    /**
+     * Add a user.
+     *
+     * @return {@code true} if the session has to be set up, {@code false} if it's still there.
+     */
+    public boolean acquire() {
+        users++;
+        if (users > 1) {
+            return false;
+        }
+        if (active) {
+            // The last user has just left, keep everything as it is.
+            scheduler.removeCallbacks(expire);
+            return false;
+        }
+        active = true;
+        return true;
+    }
+
+    /** Remove a user, the session is torn down if no other one comes during the grace period. */
+    public void release() {
+        checkState(users > 0, "No users to release");
+        users--;
+        if (users > 0) {
+            return;
+        }
+        scheduler.removeCallbacks(expire);
+        if (gracePeriodMs > 0) {
+            scheduler.postDelayed(expire, gracePeriodMs);
+        } else {
+            expire();
+        }
+    }
+
+    private void expire() {
+        if (users > 0 || !active) {
+            return;
+        }
+        active = false;
+        teardown.run();
+    }
+}
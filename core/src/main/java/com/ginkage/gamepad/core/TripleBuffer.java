@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free exchange of fixed-size reports between one producer and one consumer thread. The
+ * producer never waits for the consumer, and the consumer always gets the most recently published
+ * report, older ones are simply overwritten.
+ */
+class TripleBuffer {
+    private static final int INDEX_MASK = 0x3;
+    private static final int DIRTY = 0x4;
+
+    private final byte[][] buffers;
+
+    // Timestamps that travel together with the report in the same buffer.
+    private final long[][] timestamps;
+
+    // Index of the buffer that is ready to be swapped, plus the DIRTY flag if it's fresh.
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    // Owned by the producer.
+    private int back = 0;
+
+    // Owned by the consumer.
+    private int front = 2;
+
+    /** @param size Size of a single report. */
+    TripleBuffer(int size) {
+        this(size, 0);
+    }
+
+    /**
+     * @param size Size of a single report.
+     * @param timestampCount Number of timestamps stored with every report.
+     */
+    TripleBuffer(int size, int timestampCount) {
+        buffers = new byte[3][size];
+        timestamps = new long[3][timestampCount];
+    }
+
+    /** @return Buffer the producer should write the next report into. */
+    byte[] getBackBuffer() {
+        return buffers[back];
+    }
+
+    /** @return Timestamps of the report in the back buffer. */
+    long[] getBackTimestamps() {
+        return timestamps[back];
+    }
+
+    /** Publish the back buffer to the consumer and take a new one to write into. */
+    void publish() {
+        back = middle.getAndSet(back | DIRTY) & INDEX_MASK;
+    }
+
+    /**
+     * Take the most recently published report, if there is any.
+     *
+     * @return {@code true} if the front buffer was updated, {@code false} if nothing has been
+     *     published since the last call.
+     */
+    boolean update() {
+        if ((middle.get() & DIRTY) == 0) {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+
+    /** @return Buffer holding the report that the consumer took last. */
+    byte[] getFrontBuffer() {
+        return buffers[front];
+    }
+
+    /** @return Timestamps of the report in the front buffer. */
+    long[] getFrontTimestamps() {
+        return timestamps[front];
+    }
+}
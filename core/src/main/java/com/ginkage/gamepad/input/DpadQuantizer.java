@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.input;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Maps touch points inside a dpad control to the eight hat switch directions. The sector borders
+ * are turned into slope thresholds once, so a point is classified with a few comparisons instead
+ * of an {@code atan2} call.
+ */
+public final class DpadQuantizer {
+    /** Hat switch value for the released dpad. */
+    public static final int HAT_CENTER = 0;
+
+    private final float halfWidth;
+    private final float halfHeight;
+    private final float deadZoneSquared;
+
+    // A point is on an axis if its angle to it is below the half width of the axis sector.
+    private final float axisSlope;
+
+    /**
+     * @param width Width of the control.
+     * @param height Height of the control.
+     * @param deadZone Distance from the center that reports no direction, as a fraction of the
+     *     radius, in [0, 1).
+     * @param diagonalDegrees Width of each diagonal sector in degrees, {@code 45} makes all eight
+     *     sectors equal, {@code 0} leaves only the four axes.
+     */
+    public DpadQuantizer(int width, int height, float deadZone, float diagonalDegrees) {
+        checkArgument(width > 0 && height > 0);
+        checkArgument(deadZone >= 0 && deadZone < 1, "Bad dead zone");
+        checkArgument(diagonalDegrees >= 0 && diagonalDegrees < 90, "Bad diagonal width");
+        halfWidth = width / 2f;
+        halfHeight = height / 2f;
+        deadZoneSquared = deadZone * deadZone;
+        axisSlope = (float) Math.tan(Math.toRadians((90 - diagonalDegrees) / 2));
+    }
+
+    /**
+     * @param x Horizontal coordinate relative to the control, will be clamped to its bounds.
+     * @param y Vertical coordinate relative to the control, will be clamped to its bounds.
+     * @return Hat switch value: 0=released, 1=up, 3=right, 5=down, 7=left.
+     */
+    public int toHat(float x, float y) {
+        float dx = Math.min(Math.max(x, 0), 2 * halfWidth) / halfWidth - 1;
+        float dy = Math.min(Math.max(y, 0), 2 * halfHeight) / halfHeight - 1;
+        if (deadZoneSquared > 0 && dx * dx + dy * dy < deadZoneSquared) {
+            return HAT_CENTER;
+        }
+
+        float ax = Math.abs(dx);
+        float ay = Math.abs(dy);
+        if (ay < ax * axisSlope) {
+            return dx >= 0 ? 3 : 7;
+        }
+        if (ax < ay * axisSlope) {
+            return dy < 0 ? 1 : 5;
+        }
+        if (dy < 0) {
+            return dx >= 0 ? 2 : 8;
+        }
+        return dx >= 0 ? 4 : 6;
+    }
+}
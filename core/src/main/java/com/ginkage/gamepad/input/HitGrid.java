@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.input;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * Finds the control under a touch point. The surface is split into square cells, and every cell
+ * keeps the short list of controls that overlap it, so a hit test only looks at a couple of
+ * rectangles instead of all of them. Building the grid allocates, hit tests don't.
+ */
+public final class HitGrid {
+    /** Value returned when there is no control under the point. */
+    public static final int NO_CONTROL = -1;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int cellSize;
+    private int columns;
+    private int rows;
+
+    // Controls overlapping each cell, the one added last (drawn on top) first.
+    private int[][] cells = new int[0][];
+
+    // Control bounds, right and bottom are exclusive.
+    private int[] lefts = EMPTY;
+    private int[] tops = EMPTY;
+    private int[] rights = EMPTY;
+    private int[] bottoms = EMPTY;
+
+    /** @param cellSize Size of a grid cell in pixels. */
+    public HitGrid(int cellSize) {
+        checkArgument(cellSize > 0);
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Replace all controls, e.g. after a layout pass. Controls with empty bounds are never hit.
+     *
+     * @param width Surface width.
+     * @param height Surface height.
+     * @param lefts Left edge of every control.
+     * @param tops Top edge of every control.
+     * @param rights Right edge of every control, exclusive.
+     * @param bottoms Bottom edge of every control, exclusive.
+     */
+    public void build(
+            int width, int height, int[] lefts, int[] tops, int[] rights, int[] bottoms) {
+        int count = lefts.length;
+        checkArgument(tops.length == count && rights.length == count && bottoms.length == count);
+        this.lefts = lefts.clone();
+        this.tops = tops.clone();
+        this.rights = rights.clone();
+        this.bottoms = bottoms.clone();
+
+        columns = Math.max(1, (width + cellSize - 1) / cellSize);
+        rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        cells = new int[columns * rows][];
+
+        int[] overlapping = new int[count];
+        for (int row = 0; row < rows; row++) {
+            int cellTop = row * cellSize;
+            int cellBottom = cellTop + cellSize;
+            for (int column = 0; column < columns; column++) {
+                int cellLeft = column * cellSize;
+                int cellRight = cellLeft + cellSize;
+                int found = 0;
+                for (int control = count - 1; control >= 0; control--) {
+                    if (lefts[control] < rights[control]
+                            && tops[control] < bottoms[control]
+                            && lefts[control] < cellRight
+                            && rights[control] > cellLeft
+                            && tops[control] < cellBottom
+                            && bottoms[control] > cellTop) {
+                        overlapping[found++] = control;
+                    }
+                }
+                cells[row * columns + column] =
+                        found == 0 ? EMPTY : Arrays.copyOf(overlapping, found);
+            }
+        }
+    }
+
+    /**
+     * @param x Horizontal coordinate on the surface.
+     * @param y Vertical coordinate on the surface.
+     * @return Index of the topmost control under the point, or {@link #NO_CONTROL}.
+     */
+    public int hitTest(float x, float y) {
+        if (x < 0 || y < 0) {
+            return NO_CONTROL;
+        }
+        int column = (int) x / cellSize;
+        int row = (int) y / cellSize;
+        if (column >= columns || row >= rows) {
+            return NO_CONTROL;
+        }
+        for (int control : cells[row * columns + column]) {
+            if (x >= lefts[control]
+                    && x < rights[control]
+                    && y >= tops[control]
+                    && y < bottoms[control]) {
+                return control;
+            }
+        }
+        return NO_CONTROL;
+    }
+
+    /**
+     * @param control Control index.
+     * @return Left edge of the control.
+     */
+    public int getLeft(int control) {
+        return lefts[control];
+    }
+
+    /**
+     * @param control Control index.
+     * @return Top edge of the control.
+     */
+    public int getTop(int control) {
+        return tops[control];
+    }
+
+    /**
+     * @param control Control index.
+     * @return Width of the control.
+     */
+    public int getWidth(int control) {
+        return rights[control] - lefts[control];
+    }
+
+    /**
+     * @param control Control index.
+     * @return Height of the control.
+     */
+    public int getHeight(int control) {
+        return bottoms[control] - tops[control];
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.input;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Adaptive low-pass filter for a single touch axis, after Casiez et al., "1€ Filter". A resting
+ * finger gets a low cutoff that removes the tremor, and the cutoff rises with the speed, so that
+ * fast movements are not delayed. On top of that, the output is held until the filtered position
+ * has moved by more than a small hysteresis, so that a resting finger stops producing new values.
+ * The state is a handful of primitives, nothing is allocated.
+ */
+public final class OneEuroFilter {
+    // Used when two samples have the same timestamp, MotionEvent times are in milliseconds.
+    private static final float MIN_INTERVAL_SECONDS = 0.001f;
+
+    private final float minCutoff;
+    private final float beta;
+    private final float derivativeCutoff;
+    private final float hysteresis;
+
+    private boolean initialized;
+    private long lastTimeNanos;
+    private float lastValue;
+    private float lastDerivative;
+    private float output;
+
+    /**
+     * @param minCutoff Cutoff frequency at rest in Hz, lower removes more tremor.
+     * @param beta How fast the cutoff grows with the speed, higher reduces the lag.
+     * @param derivativeCutoff Cutoff frequency for the speed estimate in Hz.
+     * @param hysteresis Smallest change of the filtered position that is let through.
+     */
+    public OneEuroFilter(float minCutoff, float beta, float derivativeCutoff, float hysteresis) {
+        checkArgument(minCutoff > 0 && derivativeCutoff > 0 && beta >= 0 && hysteresis >= 0);
+        this.minCutoff = minCutoff;
+        this.beta = beta;
+        this.derivativeCutoff = derivativeCutoff;
+        this.hysteresis = hysteresis;
+    }
+
+    /**
+     * Filter the next sample.
+     *
+     * @param value New position.
+     * @param timeNanos Time of the sample in nanoseconds.
+     * @return Filtered position.
+     */
+    public float filter(float value, long timeNanos) {
+        if (!initialized) {
+            initialized = true;
+            lastTimeNanos = timeNanos;
+            lastValue = value;
+            lastDerivative = 0;
+            output = value;
+            return value;
+        }
+
+        float interval = (timeNanos - lastTimeNanos) * 1e-9f;
+        lastTimeNanos = timeNanos;
+        if (interval <= 0) {
+            interval = MIN_INTERVAL_SECONDS;
+        }
+
+        float derivative = (value - lastValue) / interval;
+        lastDerivative += alpha(derivativeCutoff, interval) * (derivative - lastDerivative);
+        float cutoff = minCutoff + beta * Math.abs(lastDerivative);
+        lastValue += alpha(cutoff, interval) * (value - lastValue);
+        if (Math.abs(lastValue - output) > hysteresis) {
+            output = lastValue;
+        }
+        return output;
+    }
+
+    /** Forget the history, the next sample will be passed through as is. */
+    public void reset() {
+        initialized = false;
+    }
+
+    private static float alpha(float cutoff, float interval) {
+        float tau = 1 / (2 * (float) Math.PI * cutoff);
+        return 1 / (1 + tau / interval);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.input;
+
+import java.util.Arrays;
+
+/**
+ * Remembers which control every active touch pointer is holding, so that several fingers can hold
+ * different controls at once. Each control is held by the pointer that touched it first, until
+ * that pointer is lifted. Nothing is allocated after construction.
+ */
+public final class PointerTracker {
+    /** Value used when a pointer doesn't hold any control. */
+    public static final int NO_CONTROL = -1;
+
+    /** Value used when a control is not held by any pointer. */
+    public static final int NO_POINTER = -1;
+
+    // Pointer IDs are small integers that are reused as soon as a pointer goes up.
+    private static final int MAX_POINTERS = 32;
+
+    private final int[] controlByPointer = new int[MAX_POINTERS];
+
+    public PointerTracker() {
+        releaseAll();
+    }
+
+    /**
+     * Let a pointer that has just gone down take a control.
+     *
+     * @param pointerId ID of the new pointer.
+     * @param control Control under the pointer.
+     * @return {@code true} if the pointer now holds the control, {@code false} if another pointer
+     *     is already holding it.
+     */
+    public boolean press(int pointerId, int control) {
+        if (pointerId < 0 || pointerId >= MAX_POINTERS || findPointer(control) != NO_POINTER) {
+            return false;
+        }
+        controlByPointer[pointerId] = control;
+        return true;
+    }
+
+    /**
+     * Let a pointer that has just gone up release its control.
+     *
+     * @param pointerId ID of the lifted pointer.
+     * @return Control that the pointer was holding, or {@link #NO_CONTROL}.
+     */
+    public int release(int pointerId) {
+        if (pointerId < 0 || pointerId >= MAX_POINTERS) {
+            return NO_CONTROL;
+        }
+        int control = controlByPointer[pointerId];
+        controlByPointer[pointerId] = NO_CONTROL;
+        return control;
+    }
+
+    /**
+     * Release a control, no matter which pointer is holding it.
+     *
+     * @param control Control to release.
+     * @return {@code true} if the control was held.
+     */
+    public boolean releaseControl(int control) {
+        int pointerId = findPointer(control);
+        if (pointerId == NO_POINTER) {
+            return false;
+        }
+        controlByPointer[pointerId] = NO_CONTROL;
+        return true;
+    }
+
+    /** Release all controls, e.g. when the gesture has been cancelled. */
+    public void releaseAll() {
+        Arrays.fill(controlByPointer, NO_CONTROL);
+    }
+
+    /**
+     * @param pointerId Pointer ID.
+     * @return Control that the pointer is holding, or {@link #NO_CONTROL}.
+     */
+    public int getControl(int pointerId) {
+        if (pointerId < 0 || pointerId >= MAX_POINTERS) {
+            return NO_CONTROL;
+        }
+        return controlByPointer[pointerId];
+    }
+
+    /**
+     * @param control Control to look for.
+     * @return ID of the pointer that is holding the control, or {@link #NO_POINTER}.
+     */
+    public int findPointer(int control) {
+        for (int pointerId = 0; pointerId < MAX_POINTERS; pointerId++) {
+            if (controlByPointer[pointerId] == control) {
+                return pointerId;
+            }
+        }
+        return NO_POINTER;
+    }
+}
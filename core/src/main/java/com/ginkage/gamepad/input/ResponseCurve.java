@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.input;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Shape of the stick response: how far the stick has to move before it registers, and how the
+ * output grows from there. All distances are fractions of the stick radius.
+ */
+@Immutable
+public final class ResponseCurve {
+    /** The stick output follows the touch point exactly. */
+    public static final ResponseCurve LINEAR = new ResponseCurve(0, 0, 0, 1, 0);
+
+    private final float radialDeadZone;
+    private final float axialDeadZone;
+    private final float antiDeadZone;
+    private final float exponent;
+    private final float sCurve;
+
+    /**
+     * @param radialDeadZone Distance from the center that is ignored, in [0, 1).
+     * @param axialDeadZone Distance from each axis that is ignored, to make pure horizontal and
+     *     vertical movement easier, in [0, 1).
+     * @param antiDeadZone Output the stick jumps to as soon as it leaves the dead zone, to make up
+     *     for the dead zone of the game itself, in [0, 1).
+     * @param exponent Power applied to the distance, above {@code 1} gives more precision near the
+     *     center, below {@code 1} near the edge.
+     * @param sCurve How much to blend in an S-shaped curve, which is flat at both ends, in [0, 1].
+     */
+    public ResponseCurve(
+            float radialDeadZone,
+            float axialDeadZone,
+            float antiDeadZone,
+            float exponent,
+            float sCurve) {
+        checkArgument(radialDeadZone >= 0 && radialDeadZone < 1, "Bad radial dead zone");
+        checkArgument(axialDeadZone >= 0 && axialDeadZone < 1, "Bad axial dead zone");
+        checkArgument(antiDeadZone >= 0 && antiDeadZone < 1, "Bad anti-dead zone");
+        checkArgument(exponent > 0, "Bad exponent");
+        checkArgument(sCurve >= 0 && sCurve <= 1, "Bad S-curve");
+        this.radialDeadZone = radialDeadZone;
+        this.axialDeadZone = axialDeadZone;
+        this.antiDeadZone = antiDeadZone;
+        this.exponent = exponent;
+        this.sCurve = sCurve;
+    }
+
+    /**
+     * Remove the axial dead zone from a single axis.
+     *
+     * @param value Position along the axis, in [-1, 1].
+     * @return Position with the dead zone removed, in [-1, 1].
+     */
+    float applyAxial(float value) {
+        float magnitude = Math.abs(value);
+        if (magnitude <= axialDeadZone) {
+            return 0;
+        }
+        return Math.copySign((magnitude - axialDeadZone) / (1 - axialDeadZone), value);
+    }
+
+    /**
+     * Map the distance from the center to the output distance. Slow, meant for building tables.
+     *
+     * @param distance Distance from the center, in [0, 1].
+     * @return Output distance, in [0, 1].
+     */
+    float applyRadial(float distance) {
+        if (distance <= radialDeadZone) {
+            return 0;
+        }
+        double t = Math.min((distance - radialDeadZone) / (1 - radialDeadZone), 1);
+        t = Math.pow(t, exponent);
+        t += sCurve * (t * t * (3 - 2 * t) - t);
+        return (float) (antiDeadZone + (1 - antiDeadZone) * t);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.input;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Maps touch points inside a stick control to axis values through a {@link ResponseCurve}. The
+ * curve is sampled into lookup tables for the control size once, so mapping a point only takes a
+ * few table reads and multiplications, without any trigonometry, square roots or allocations.
+ */
+public final class StickMapper {
+    // Resolution of the radial table, indexed by the squared distance in [0, 2].
+    private static final int RADIAL_STEPS = 4096;
+    private static final float RADIAL_INDEX_SCALE = (RADIAL_STEPS - 1) / 2f;
+
+    private static final float AXIS_HALF = TouchMapping.AXIS_MAX / 2f;
+
+    private final int width;
+    private final int height;
+
+    // Position along each axis in [-1, 1] for every pixel, with the axial dead zone removed.
+    private final float[] xTable;
+    private final float[] yTable;
+
+    // Output distance divided by the input distance, so that the direction is kept.
+    private final float[] radialScale = new float[RADIAL_STEPS];
+
+    /**
+     * @param curve Response curve to apply.
+     * @param width Width of the control.
+     * @param height Height of the control.
+     */
+    public StickMapper(ResponseCurve curve, int width, int height) {
+        checkArgument(width > 0 && height > 0);
+        this.width = width;
+        this.height = height;
+        xTable = axisTable(curve, width);
+        yTable = axisTable(curve, height);
+
+        float edge = curve.applyRadial(1);
+        for (int i = 0; i < RADIAL_STEPS; i++) {
+            // The first step also covers small distances around the center, not just zero.
+            float distance = (float) Math.sqrt(Math.max(i, 0.25f) / RADIAL_INDEX_SCALE);
+            if (distance <= 1) {
+                radialScale[i] = curve.applyRadial(distance) / distance;
+            } else {
+                // Beyond the circle, towards the corners: keep growing and let the axes clamp.
+                radialScale[i] = edge;
+            }
+        }
+    }
+
+    /**
+     * Map a touch point to both axis values.
+     *
+     * @param x Horizontal coordinate relative to the control, will be clamped to its bounds.
+     * @param y Vertical coordinate relative to the control, will be clamped to its bounds.
+     * @return Both axis values in the [0, 65535] interval, packed with {@link #packedX} and
+     *     {@link #packedY}.
+     */
+    public int map(float x, float y) {
+        float nx = lookup(xTable, x, width);
+        float ny = lookup(yTable, y, height);
+        int index = (int) ((nx * nx + ny * ny) * RADIAL_INDEX_SCALE + 0.5f);
+        float scale = radialScale[Math.min(index, RADIAL_STEPS - 1)];
+        return (toAxis(nx * scale) << 16) | toAxis(ny * scale);
+    }
+
+    /**
+     * @param packed Value returned by {@link #map}.
+     * @return Horizontal axis value.
+     */
+    public static int packedX(int packed) {
+        return packed >>> 16;
+    }
+
+    /**
+     * @param packed Value returned by {@link #map}.
+     * @return Vertical axis value.
+     */
+    public static int packedY(int packed) {
+        return packed & 0xFFFF;
+    }
+
+    private static float[] axisTable(ResponseCurve curve, int size) {
+        float[] table = new float[size + 1];
+        for (int i = 0; i <= size; i++) {
+            table[i] = curve.applyAxial(2f * i / size - 1);
+        }
+        return table;
+    }
+
+    private static float lookup(float[] table, float position, int size) {
+        // Interpolate between the neighbouring pixels to keep the sub-pixel precision.
+        float clamped = Math.min(Math.max(position, 0), size);
+        int index = Math.min((int) clamped, size - 1);
+        float fraction = clamped - index;
+        return table[index] + (table[index + 1] - table[index]) * fraction;
+    }
+
+    private static int toAxis(float value) {
+        int axis = Math.round((value + 1) * AXIS_HALF);
+        return Math.min(Math.max(axis, 0), TouchMapping.AXIS_MAX);
+    }
+}
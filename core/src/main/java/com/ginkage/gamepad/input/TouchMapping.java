@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.input;
+
+/** Converts touch coordinates inside a control into stick axis and hat switch values. */
+public final class TouchMapping {
+    public static final int AXIS_MAX = 65535;
+
+    // Hat switch value for each of the 16 sectors, counter-clockwise starting from "right".
+    private static final int[] EIGHT_WAY = {3, 2, 2, 1, 1, 8, 8, 7, 7, 6, 6, 5, 5, 4, 4, 3};
+
+    private TouchMapping() {}
+
+    /**
+     * Map a touch coordinate to the full axis range.
+     *
+     * @param position Coordinate relative to the control, will be clamped to its bounds.
+     * @param size Size of the control along the same axis.
+     * @return Axis value in the [0, 65535] interval.
+     */
+    public static int toAxis(float position, int size) {
+        return Math.round(AXIS_MAX * clamp(position, size) / size);
+    }
+
+    /**
+     * Map a touch point to one of the eight hat switch directions.
+     *
+     * @param x Horizontal coordinate relative to the control.
+     * @param y Vertical coordinate relative to the control.
+     * @param width Width of the control.
+     * @param height Height of the control.
+     * @return Hat switch value: 1=up, 3=right, 5=down, 7=left.
+     */
+    public static int toHat(float x, float y, int width, int height) {
+        float dx = clamp(x, width) - width / 2;
+        float dy = clamp(y, height) - height / 2;
+        double theta = Math.atan2(-dy, dx);
+        if (theta < 0) {
+            theta += 2 * Math.PI;
+        }
+        int area = (int) (theta / (Math.PI / 8));
+        return EIGHT_WAY[area];
+    }
+
+    private static float clamp(float position, int size) {
+        return Math.min(Math.max(position, 0), size);
+    }
+}
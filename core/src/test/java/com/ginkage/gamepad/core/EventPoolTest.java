@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.ArrayDeque;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link EventPool}. */
+@RunWith(JUnit4.class)
+public class EventPoolTest {
+    private static final int CAPACITY = 16;
+    private static final int EVENTS = 100_000;
+
+    /** Stands in for the binder callback arguments. */
+    private static final class Event {
+        int value;
+    }
+
+    private final EventPool<Event> pool = new EventPool<>(CAPACITY, Event::new);
+
+    // Stands in for the main thread looper.
+    private final ArrayDeque<Event> queue = new ArrayDeque<>();
+
+    @Test
+    public void dispatch_warmPool_createsNothing() {
+        // Warm up with one burst of every size the pool holds.
+        for (int burst = 1; burst <= CAPACITY; burst++) {
+            dispatch(burst, burst);
+        }
+        long created = pool.getCreatedCount();
+
+        int sent = 0;
+        int burst = 1;
+        while (sent < EVENTS) {
+            sent += dispatch(sent, burst);
+            burst = burst % CAPACITY + 1;
+        }
+
+        assertEquals(created, pool.getCreatedCount());
+    }
+
+    @Test
+    public void obtain_allInFlight_createsOneMore() {
+        for (int i = 0; i < CAPACITY; i++) {
+            queue.add(pool.obtain());
+        }
+        assertEquals(CAPACITY, pool.getCreatedCount());
+
+        Event extra = pool.obtain();
+        assertEquals(CAPACITY + 1, pool.getCreatedCount());
+        for (Event event : queue) {
+            assertNotSame(event, extra);
+        }
+
+        // The pool doesn't grow past its capacity, the extra event is left for the GC.
+        pool.recycle(extra);
+        while (!queue.isEmpty()) {
+            pool.recycle(queue.poll());
+        }
+        dispatch(0, CAPACITY);
+        assertEquals(CAPACITY + 1, pool.getCreatedCount());
+    }
+
+    /**
+     * Post a burst of events, as the binder thread does, then handle them all, as the main thread
+     * does.
+     *
+     * @return Number of events dispatched.
+     */
+    private int dispatch(int first, int count) {
+        for (int i = 0; i < count; i++) {
+            Event event = pool.obtain();
+            event.value = first + i;
+            queue.add(event);
+        }
+        int expected = first;
+        while (!queue.isEmpty()) {
+            Event event = queue.poll();
+            assertEquals(expected++, event.value);
+            event.value = 0;
+            pool.recycle(event);
+        }
+        return count;
+    }
+}
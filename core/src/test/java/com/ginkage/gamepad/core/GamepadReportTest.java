@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link GamepadReport}. */
+@RunWith(JUnit4.class)
+public class GamepadReportTest {
+    private static final int BUTTONS =
+            GamepadState.BUTTON_A
+                    | GamepadState.BUTTON_B
+                    | GamepadState.BUTTON_X
+                    | GamepadState.BUTTON_Y
+                    | GamepadState.BUTTON_L1
+                    | GamepadState.BUTTON_R1
+                    | GamepadState.BUTTON_VIEW
+                    | GamepadState.BUTTON_MENU
+                    | GamepadState.BUTTON_HOME
+                    | GamepadState.BUTTON_L3
+                    | GamepadState.BUTTON_R3
+                    | GamepadState.BUTTON_RECORD;
+
+    private final GamepadReport report = new GamepadReport();
+
+    @Test
+    public void decode_randomStates_roundTrips() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            GamepadState state = new GamepadState();
+            state.setLeftStick(random.nextInt(65536), random.nextInt(65536));
+            state.setRightStick(random.nextInt(65536), random.nextInt(65536));
+            state.setL2(random.nextInt(1024));
+            state.setR2(random.nextInt(1024));
+            state.setDpad(random.nextInt(9));
+            int buttons = random.nextInt() & BUTTONS;
+            state.setButton(buttons, true);
+
+            byte[] data = report.setValue(state).clone();
+            GamepadState decoded = GamepadReport.decode(data);
+
+            assertTrue(state.contentEquals(decoded));
+            assertEquals(buttons, decoded.getButtons());
+            assertArrayEquals(data, report.setValue(decoded));
+        }
+    }
+
+    @Test
+    public void decode_centeredState_matchesDefaults() {
+        GamepadState decoded = GamepadReport.decode(report.setValue(new GamepadState()));
+
+        assertEquals(GamepadState.STICK_CENTER, decoded.getLx());
+        assertEquals(GamepadState.STICK_CENTER, decoded.getRy());
+        assertEquals(0, decoded.getButtons());
+        assertEquals(0, decoded.getL2());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void oldAccessors_followPackedState() {
+        GamepadState state = new GamepadState();
+        state.setA(true);
+        state.setHome(true);
+        state.setLx(100);
+        state.setRy(200);
+
+        assertTrue(state.isPressed(GamepadState.BUTTON_A));
+        assertTrue(state.isHome());
+        assertFalse(state.isB());
+        assertEquals(100, state.getLx());
+        assertEquals(GamepadState.STICK_CENTER, state.getLy());
+        assertEquals(GamepadState.STICK_CENTER, state.getRx());
+        assertEquals(200, state.getRy());
+
+        state.setA(false);
+        assertFalse(state.isA());
+        assertEquals(GamepadState.BUTTON_HOME, state.getButtons());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_shortReport_throws() {
+        GamepadReport.decode(new byte[8]);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link GamepadStateHolder}. */
+@RunWith(JUnit4.class)
+public class GamepadStateHolderTest {
+    private static final int HISTORY = 4;
+    private static final long SAMPLE_NANOS = 4_166_667;
+
+    private final List<GamepadState> sent = new ArrayList<>();
+    private final GamepadStateHolder holder =
+            new GamepadStateHolder(
+                    state -> {
+                        GamepadState copy = new GamepadState();
+                        copy.copyFrom(state);
+                        sent.add(copy);
+                    });
+
+    /**
+     * A batched ACTION_MOVE, handled the way the touch surface does it: both sticks move through
+     * every historical sample, a button is pressed by another pointer, and the transaction is
+     * committed once for the whole event.
+     */
+    @Test
+    public void commit_eventWithHistory_sendsOneReport() {
+        GamepadState state = holder.begin();
+        for (int h = 0; h <= HISTORY; h++) {
+            state.setLeftStick(1000 * h, 2000 * h);
+            state.setRightStick(3000 * h, 4000 * h);
+        }
+        state.setButton(GamepadState.BUTTON_A, true);
+        assertTrue(holder.commit(HISTORY * SAMPLE_NANOS));
+
+        assertEquals(1, sent.size());
+        assertEquals(1, holder.getSentReportCount());
+        GamepadState report = sent.get(0);
+        assertEquals(1000 * HISTORY, report.getLx());
+        assertEquals(2000 * HISTORY, report.getLy());
+        assertEquals(3000 * HISTORY, report.getRx());
+        assertEquals(4000 * HISTORY, report.getRy());
+        assertTrue(report.isPressed(GamepadState.BUTTON_A));
+    }
+
+    @Test
+    public void commit_nothingChanged_sendsNothing() {
+        GamepadState state = holder.begin();
+        state.setLeftStick(100, 200);
+        holder.commit(SAMPLE_NANOS);
+
+        // The stick went away and came back within one event.
+        state = holder.begin();
+        state.setLeftStick(300, 400);
+        state.setLeftStick(100, 200);
+        assertFalse(holder.commit(2 * SAMPLE_NANOS));
+
+        assertEquals(1, sent.size());
+        assertEquals(2, holder.getCommitCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void begin_twice_throws() {
+        holder.begin();
+        holder.begin();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link HidConstants}. */
+@RunWith(JUnit4.class)
+public class HidConstantsTest {
+    private static final int ITEM_USAGE_PAGE = 0x04;
+    private static final int ITEM_USAGE = 0x08;
+    private static final int ITEM_REPORT_ID = 0x84;
+    private static final int USAGE_PAGE_PID = 0x0F;
+
+    /** The collection usage of every PID report, as listed in the USB PID 1.0 usage tables. */
+    @Test
+    public void reportDescriptor_pidReportsHaveTheirOwnUsages() {
+        Map<Integer, Integer> expected = new LinkedHashMap<>();
+        expected.put((int) HidConstants.ID_FEEDBACK, 0x95); // Device Control Report
+        expected.put((int) HidConstants.ID_PID_SET_EFFECT, 0x21); // Set Effect Report
+        expected.put((int) HidConstants.ID_PID_EFFECT_OPERATION, 0x77); // Effect Operation Report
+        expected.put((int) HidConstants.ID_PID_BLOCK_FREE, 0x90); // Block Free Report
+        expected.put((int) HidConstants.ID_PID_CREATE_EFFECT, 0xAB); // Create New Effect Report
+        expected.put((int) HidConstants.ID_PID_BLOCK_LOAD, 0x89); // Block Load Report
+
+        assertEquals(expected, getPidReportUsages(HidConstants.HIDD_REPORT_DESC));
+    }
+
+    /** @return First PID page usage after every report ID, by report ID. */
+    private static Map<Integer, Integer> getPidReportUsages(byte[] descriptor) {
+        Map<Integer, Integer> usages = new LinkedHashMap<>();
+        int reportId = -1;
+        int usagePage = -1;
+        for (int i = 0; i < descriptor.length; ) {
+            int prefix = descriptor[i] & 0xFF;
+            int size = prefix & 0x03;
+            if (size == 3) {
+                size = 4;
+            }
+            int value = 0;
+            for (int b = 0; b < size; b++) {
+                value |= (descriptor[i + 1 + b] & 0xFF) << (8 * b);
+            }
+            i += 1 + size;
+
+            switch (prefix & 0xFC) {
+                case ITEM_REPORT_ID:
+                    reportId = value;
+                    break;
+                case ITEM_USAGE_PAGE:
+                    usagePage = value;
+                    break;
+                case ITEM_USAGE:
+                    if (usagePage == USAGE_PAGE_PID && !usages.containsKey(reportId)) {
+                        usages.put(reportId, value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return usages;
+    }
+}
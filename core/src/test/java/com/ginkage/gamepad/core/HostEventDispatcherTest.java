@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link HostEventDispatcher}. */
+@RunWith(JUnit4.class)
+public class HostEventDispatcherTest {
+    private static final int MSG_STATUS = 0;
+    private static final int MSG_GET_REPORT = 1;
+    private static final int POLLS = 1000;
+    private static final int WARMUP_ROUNDS = 20;
+
+    private final Object device = new Object();
+    private final HidMetrics metrics = new HidMetrics();
+
+    // Stands in for the main thread looper.
+    private final ArrayDeque<HostEventDispatcher.Event<Object>> queue = new ArrayDeque<>();
+    private final ArrayDeque<Integer> messages = new ArrayDeque<>();
+    private final HostEventDispatcher<Object> dispatcher =
+            new HostEventDispatcher<>(
+                    metrics,
+                    (what, event) -> {
+                        messages.add(what);
+                        queue.add(event);
+                    });
+
+    @Test
+    public void dispatch_getReportStormWithoutSubscriber_postsNothing() {
+        for (int i = 0; i < POLLS; i++) {
+            assertFalse(getReport());
+        }
+
+        assertTrue(queue.isEmpty());
+        assertEquals(0, metrics.get(HidMetrics.Counter.MAIN_THREAD_EVENTS));
+    }
+
+    @Test
+    public void dispatch_getReportStormWithSubscriber_postsEveryCallback() {
+        dispatcher.setInterests(HostEventDispatcher.EVENT_SET_REPORT);
+        assertFalse(getReport());
+
+        dispatcher.setInterests(
+                HostEventDispatcher.EVENT_SET_REPORT | HostEventDispatcher.EVENT_GET_REPORT);
+        for (int i = 0; i < POLLS; i++) {
+            assertTrue(getReport());
+            HostEventDispatcher.Event<Object> event = queue.poll();
+            assertSame(device, event.device);
+            assertEquals(HidConstants.ID_GAMEPAD, event.id);
+            assertEquals(16, event.value);
+            dispatcher.recycle(event);
+            assertNull(event.device);
+        }
+
+        assertEquals(POLLS, metrics.get(HidMetrics.Counter.MAIN_THREAD_EVENTS));
+    }
+
+    @Test
+    public void dispatchAndRecycle_warmedUp_doesNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        dispatcher.setInterests(HostEventDispatcher.EVENT_GET_REPORT);
+
+        // Fills the pool and the queue, and gets the loop compiled.
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            pollAndRecycle();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        pollAndRecycle();
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        // Even one allocation per callback would be at least 16 bytes each.
+        assertTrue(allocated + " bytes allocated for " + POLLS + " callbacks", allocated < POLLS);
+    }
+
+    @Test
+    public void dispatch_always_ignoresInterests() {
+        assertTrue(
+                dispatcher.dispatch(
+                        HostEventDispatcher.ALWAYS,
+                        MSG_STATUS,
+                        device,
+                        (byte) 0,
+                        (byte) 0,
+                        1,
+                        null));
+
+        assertEquals(MSG_STATUS, (int) messages.poll());
+        assertEquals(1, queue.poll().value);
+    }
+
+    private void pollAndRecycle() {
+        for (int i = 0; i < POLLS; i++) {
+            getReport();
+            messages.poll();
+            dispatcher.recycle(queue.poll());
+        }
+    }
+
+    private boolean getReport() {
+        return dispatcher.dispatch(
+                HostEventDispatcher.EVENT_GET_REPORT,
+                MSG_GET_REPORT,
+                device,
+                (byte) 1,
+                HidConstants.ID_GAMEPAD,
+                16,
+                null);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link PacedReportSender}, with a fake transport in place of the profile proxy. */
+@RunWith(JUnit4.class)
+public class PacedReportSenderTest {
+    private static final int SIZE = 16;
+    private static final int EVENTS = 100;
+    private static final long TIMEOUT_SECONDS = 5;
+    private static final String HOST = "00:11:22:33:44:55";
+    private static final String OTHER_HOST = "66:77:88:99:AA:BB";
+
+    /**
+     * Holds the first report in the binder call until it is released, like a busy Bluetooth stack,
+     * and remembers what was sent and from where.
+     */
+    private static final class BlockingTransport implements ReportTransport {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final AtomicReference<byte[]> lastSent = new AtomicReference<>();
+        final AtomicInteger sentReports = new AtomicInteger();
+
+        @Override
+        public boolean sendReport(byte id, byte[] data) {
+            threads.add(Thread.currentThread());
+            entered.countDown();
+            try {
+                released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            lastSent.set(data.clone());
+            sentReports.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public boolean replyReport(byte type, byte id, byte[] data) {
+            return true;
+        }
+
+        @Override
+        public String getHostAddress() {
+            return HOST;
+        }
+
+        boolean isBlocked() {
+            return entered.getCount() == 0 && released.getCount() > 0;
+        }
+    }
+
+    /** Counts the reports, like a snapshot of the proxy and the device would send them. */
+    private static final class CountingTransport implements ReportTransport {
+        final String host;
+        int sentReports;
+
+        CountingTransport(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public boolean sendReport(byte id, byte[] data) {
+            sentReports++;
+            return true;
+        }
+
+        @Override
+        public boolean replyReport(byte type, byte id, byte[] data) {
+            return true;
+        }
+
+        @Override
+        public String getHostAddress() {
+            return host;
+        }
+    }
+
+    // Simulated clock, a full pacer slot passes between two readings, on any thread.
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void publish_transportBlocked_returnsWithoutWaiting() throws InterruptedException {
+        BlockingTransport transport = new BlockingTransport();
+        PacedReportSender sender = newSimulatedSender();
+        // Flushes the way HidDeviceApp does it, the simulated clock never runs out of tokens.
+        ExecutorService senderThread = Executors.newSingleThreadExecutor();
+        Runnable flush = () -> sender.flush(transport);
+        byte[] report = new byte[SIZE];
+
+        assertTrue(sender.publish(report, 0));
+        senderThread.execute(flush);
+        assertTrue(transport.entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // The sender thread is stuck in the binder call, the main thread keeps publishing.
+        int scheduled = 0;
+        for (int event = 1; event < EVENTS; event++) {
+            report[0] = (byte) event;
+            if (sender.publish(report, 0)) {
+                senderThread.execute(flush);
+                scheduled++;
+            }
+        }
+        assertTrue(transport.isBlocked());
+        assertEquals(0, transport.sentReports.get());
+        // The first report was taken before the others came, one more flush picks the newest.
+        assertEquals(1, scheduled);
+
+        transport.released.countDown();
+        senderThread.shutdown();
+        assertTrue(senderThread.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertFalse(transport.threads.contains(Thread.currentThread()));
+        // Reports that were replaced while the sender was busy are skipped, the newest one is not.
+        assertEquals(2, transport.sentReports.get());
+        assertEquals((byte) (EVENTS - 1), transport.lastSent.get()[0]);
+    }
+
+    @Test
+    public void cancelFlush_nextPublishSchedulesFlush() {
+        PacedReportSender sender = newSimulatedSender();
+        byte[] report = new byte[SIZE];
+        assertTrue(sender.publish(report, 0));
+        assertFalse(sender.publish(report, 0));
+
+        // The sender thread quit before it got to the flush.
+        sender.cancelFlush();
+
+        assertTrue(sender.publish(report, 0));
+    }
+
+    @Test
+    public void flush_sameHostThroughNewTransport_skipsDuplicate() {
+        PacedReportSender sender = newSimulatedSender();
+        byte[] report = new byte[SIZE];
+        CountingTransport first = new CountingTransport(HOST);
+        sender.publish(report, 0);
+        sender.flush(first);
+
+        // A new proxy, or another BluetoothDevice object for the same address.
+        CountingTransport second = new CountingTransport(new String(HOST));
+        sender.publish(report, 0);
+        sender.flush(second);
+
+        assertEquals(1, first.sentReports);
+        assertEquals(0, second.sentReports);
+    }
+
+    @Test
+    public void flush_newHost_sendsReportAgain() {
+        PacedReportSender sender = newSimulatedSender();
+        byte[] report = new byte[SIZE];
+        CountingTransport first = new CountingTransport(HOST);
+        sender.publish(report, 0);
+        sender.flush(first);
+
+        CountingTransport second = new CountingTransport(OTHER_HOST);
+        sender.publish(report, 0);
+        sender.flush(second);
+
+        assertEquals(1, first.sentReports);
+        assertEquals(1, second.sentReports);
+    }
+
+    private PacedReportSender newSimulatedSender() {
+        ReportPacer pacer = newPacer();
+        return new PacedReportSender(
+                HidConstants.ID_GAMEPAD,
+                SIZE,
+                pacer,
+                new HidMetrics(),
+                () -> now.addAndGet(pacer.getEmissionInterval()));
+    }
+
+    private static ReportPacer newPacer() {
+        return new ReportPacer(
+                HidConstants.QOS_TOKEN_RATE,
+                HidConstants.QOS_TOKEN_BUCKET_SIZE,
+                HidConstants.QOS_TOKEN_BUCKET_SIZE);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ReportStore}. */
+@RunWith(JUnit4.class)
+public class ReportStoreTest {
+    private static final byte ID = HidConstants.ID_GAMEPAD;
+    private static final int SIZE = 16;
+    private static final int READERS = 4;
+    private static final long STRESS_MILLIS = 1_000;
+
+    @Test
+    public void read_truncatesToBufferSize() {
+        ReportStore store = new ReportStore();
+        store.register(ID, SIZE);
+        byte[] report = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            report[i] = (byte) (i + 1);
+        }
+        store.publish(ID, report);
+
+        // The buffer size includes the report ID byte.
+        assertArrayEquals(Arrays.copyOf(report, 4), store.read(ID, 5));
+        assertEquals(0, store.read(ID, 1).length);
+        assertArrayEquals(report, store.read(ID, 0));
+        assertArrayEquals(report, store.read(ID, SIZE + 10));
+        assertNull(store.read(HidConstants.ID_BATTERY, 0));
+    }
+
+    @Test
+    public void read_returnsPreallocatedBuffers() {
+        ReportStore store = new ReportStore();
+        store.register(ID, SIZE);
+        store.publish(ID, new byte[SIZE]);
+
+        byte[] truncated = store.read(ID, 5);
+        store.publish(ID, new byte[SIZE]);
+        assertSame(truncated, store.read(ID, 5));
+    }
+
+    @Test
+    public void read_otherThread_getsOwnBuffer() throws InterruptedException {
+        ReportStore store = new ReportStore();
+        store.register(ID, SIZE);
+        store.publish(ID, new byte[SIZE]);
+
+        byte[] mine = store.read(ID, 0);
+        AtomicReference<byte[]> theirs = new AtomicReference<>();
+        Thread thread = new Thread(() -> theirs.set(store.read(ID, 0)));
+        thread.start();
+        thread.join();
+
+        assertNotSame(mine, theirs.get());
+    }
+
+    /**
+     * The main thread encodes and publishes as fast as it can, while GET_REPORT requests read the
+     * store from several threads at once, without any synchronization of their own.
+     */
+    @Test
+    public void setValueAndGetReport_neverTear() throws InterruptedException {
+        ReportStore store = new ReportStore();
+        store.register(ID, SIZE);
+        store.publish(ID, new GamepadReport().setValue(new GamepadState()));
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(READERS + 1);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong changes = new AtomicLong();
+
+        Thread writer =
+                new Thread(
+                        () -> {
+                            GamepadState state = new GamepadState();
+                            GamepadReport gamepadReport = new GamepadReport();
+                            int value = 0;
+                            while (!done.get()) {
+                                value = (value + 1) & 0xFFFF;
+                                state.setLeftStick(value, value);
+                                state.setRightStick(value, value);
+                                state.setL2(value & 0x3FF);
+                                state.setR2(value & 0x3FF);
+                                store.publish(ID, gamepadReport.setValue(state));
+                            }
+                            finished.countDown();
+                        });
+        Runnable reader =
+                () -> {
+                    int previous = -1;
+                    while (!done.get()) {
+                        byte[] report = store.read(ID, 0);
+                        String error = check(report);
+                        if (error != null) {
+                            torn.compareAndSet(null, error);
+                            done.set(true);
+                        }
+                        int value = readShort(report, 0);
+                        if (value != previous) {
+                            changes.incrementAndGet();
+                            previous = value;
+                        }
+                        reads.incrementAndGet();
+                    }
+                    finished.countDown();
+                };
+
+        writer.start();
+        for (int i = 0; i < READERS; i++) {
+            new Thread(reader).start();
+        }
+        Thread.sleep(STRESS_MILLIS);
+        done.set(true);
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        if (torn.get() != null) {
+            fail(torn.get());
+        }
+        assertTrue("Only " + reads.get() + " reads", reads.get() > 1000);
+        assertTrue("Only " + changes.get() + " changes seen", changes.get() > 100);
+    }
+
+    /** @return Description of the inconsistency, or {@code null} if the report is whole. */
+    private static String check(byte[] report) {
+        int lx = readShort(report, 0);
+        int trigger = lx & 0x3FF;
+        if (readShort(report, 2) != lx
+                || readShort(report, 4) != lx
+                || readShort(report, 6) != lx
+                || readShort(report, 8) != trigger
+                || readShort(report, 10) != trigger) {
+            return "Torn report: " + Arrays.toString(report);
+        }
+        return null;
+    }
+
+    private static int readShort(byte[] report, int offset) {
+        return (report[offset] & 0xFF) | (report[offset + 1] & 0xFF) << 8;
+    }
+}
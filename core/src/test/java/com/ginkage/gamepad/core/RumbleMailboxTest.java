@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link RumbleMailbox}. */
+@RunWith(JUnit4.class)
+public class RumbleMailboxTest {
+    private static final long STOP = RumbleMailbox.command(RumbleMailbox.KIND_STOP, 0, 0, 0, 0);
+    private static final long RUMBLE =
+            RumbleMailbox.command(RumbleMailbox.KIND_WAVEFORM, 255, 100, 0, 0);
+
+    private final HidMetrics metrics = new HidMetrics();
+    private final RumbleMailbox mailbox = new RumbleMailbox(metrics);
+
+    @Test
+    public void offer_wakesOnlyWhenEmpty() {
+        assertTrue(mailbox.offer(RUMBLE));
+        assertFalse(mailbox.offer(STOP));
+
+        assertEquals(STOP, mailbox.take());
+        assertEquals(RumbleMailbox.EMPTY, mailbox.take());
+        assertEquals(1, metrics.get(HidMetrics.Counter.RUMBLE_DROPPED));
+        assertEquals(1, metrics.get(HidMetrics.Counter.RUMBLE_APPLIED));
+    }
+
+    @Test
+    public void clear_dropsPendingCommand() {
+        mailbox.offer(RUMBLE);
+        assertFalse(mailbox.isEmpty());
+
+        mailbox.clear();
+        assertTrue(mailbox.isEmpty());
+        assertEquals(RumbleMailbox.EMPTY, mailbox.take());
+        assertEquals(1, metrics.get(HidMetrics.Counter.RUMBLE_DROPPED));
+
+        // The next command wakes the consumer again.
+        assertTrue(mailbox.offer(RUMBLE));
+    }
+
+    @Test
+    public void post_decodesReport() {
+        byte[] report = {1, 100, 100, 100, 100, 10, 0, 2};
+        mailbox.post(report);
+
+        long command = mailbox.take();
+        assertEquals(RumbleMailbox.KIND_WAVEFORM, RumbleMailbox.getKind(command));
+        assertEquals(255, RumbleMailbox.getAmplitude(command));
+        assertEquals(100, RumbleMailbox.getDuration(command));
+        assertEquals(0, RumbleMailbox.getStartDelay(command));
+        assertEquals(2, RumbleMailbox.getLoopCount(command));
+    }
+}
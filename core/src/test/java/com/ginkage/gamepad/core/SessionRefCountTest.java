@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ginkage.gamepad.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link SessionRefCount}. Every setup stands for an SDP record registration, which
+ * makes the host reconnect.
+ */
+@RunWith(JUnit4.class)
+public class SessionRefCountTest {
+    private static final long GRACE_PERIOD_MS = 5_000;
+
+    // Time it takes to recreate an activity, or to open the next screen.
+    private static final long RECREATE_MS = 300;
+
+    /** Runs the delayed tasks when the simulated clock reaches them, like a looper. */
+    private static final class FakeScheduler implements SessionRefCount.Scheduler {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<Long> times = new ArrayList<>();
+        private long now;
+
+        @Override
+        public void postDelayed(Runnable task, long delayMillis) {
+            tasks.add(task);
+            times.add(now + delayMillis);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable task) {
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                if (tasks.get(i) == task) {
+                    tasks.remove(i);
+                    times.remove(i);
+                }
+            }
+        }
+
+        void advance(long millis) {
+            now += millis;
+            for (int i = 0; i < tasks.size(); ) {
+                if (times.get(i) <= now) {
+                    Runnable task = tasks.remove(i);
+                    times.remove(i);
+                    task.run();
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private int setups;
+    private int teardowns;
+    private final SessionRefCount session =
+            new SessionRefCount(scheduler, () -> teardowns++, GRACE_PERIOD_MS);
+
+    @Test
+    public void rotation_keepsSession() {
+        acquire();
+        for (int rotation = 0; rotation < 10; rotation++) {
+            // The old activity goes away before the new one is created.
+            session.release();
+            scheduler.advance(RECREATE_MS);
+            acquire();
+        }
+        scheduler.advance(GRACE_PERIOD_MS * 2);
+
+        assertEquals(1, setups);
+        assertEquals(0, teardowns);
+    }
+
+    @Test
+    public void navigation_keepsSession() {
+        // The next screen registers before the previous one unregisters.
+        acquire();
+        acquire();
+        session.release();
+        scheduler.advance(GRACE_PERIOD_MS * 2);
+
+        // Or the other way around, when going back.
+        session.release();
+        scheduler.advance(RECREATE_MS);
+        acquire();
+        scheduler.advance(GRACE_PERIOD_MS * 2);
+
+        assertEquals(1, setups);
+        assertEquals(0, teardowns);
+    }
+
+    @Test
+    public void gracePeriodOver_tearsDownOnce() {
+        acquire();
+        session.release();
+        scheduler.advance(GRACE_PERIOD_MS - 1);
+        assertEquals(0, teardowns);
+
+        scheduler.advance(1);
+        assertEquals(1, teardowns);
+        scheduler.advance(GRACE_PERIOD_MS * 2);
+        assertEquals(1, teardowns);
+
+        acquire();
+        assertEquals(2, setups);
+    }
+
+    @Test
+    public void noGracePeriod_tearsDownRightAway() {
+        session.setGracePeriod(0);
+        acquire();
+        session.release();
+        assertEquals(1, teardowns);
+
+        acquire();
+        assertEquals(2, setups);
+    }
+
+    private void acquire() {
+        if (session.acquire()) {
+            setups++;
+        }
+    }
+}